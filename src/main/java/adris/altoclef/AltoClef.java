@@ -195,15 +195,11 @@ public class AltoClef implements ModInitializer {
             }
         }
 
-        // TODO: should this go here?
-        _storageTracker.setDirty();
         _containerSubTracker.onServerTick();
         _miscBlockTracker.tick();
 
         _trackerManager.tick();
-        _blockTracker.preTickTask();
         _taskRunner.tick();
-        _blockTracker.postTickTask();
 
         _butler.tick();
         _messageSender.tick();
@@ -326,6 +322,13 @@ public class AltoClef implements ModInitializer {
         return _miscBlockTracker;
     }
 
+    /**
+     * Keeps the trackers up to date, and knows how long that takes
+     */
+    public TrackerManager getTrackerManager() {
+        return _trackerManager;
+    }
+
     /**
      * Baritone access (could just be static honestly)
      */
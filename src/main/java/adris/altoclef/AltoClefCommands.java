@@ -37,7 +37,10 @@ public class AltoClefCommands {
                 new ListCommand(),
                 new CoverWithSandCommand(),
                 new CoverWithBlocksCommand(),
-                new SelfCareCommand()
+                new SelfCareCommand(),
+                new TrackerStatsCommand(),
+                new EventStatsCommand(),
+                new TickProfileCommand()
                 //new TestMoveInventoryCommand(),
                 //    new TestSwapInventoryCommand()
         );
@@ -28,7 +28,13 @@ import adris.altoclef.tasks.stupid.BeeMovieTask;
 import adris.altoclef.tasks.stupid.ReplaceBlocksTask;
 import adris.altoclef.tasks.stupid.SCP173Task;
 import adris.altoclef.tasks.stupid.TerminatorTask;
+import adris.altoclef.trackers.BlockTrackerSnapshotTest;
+import adris.altoclef.trackers.EntityTypeIndexTest;
+import adris.altoclef.trackers.spatial.ChunkSectionScannerTest;
+import adris.altoclef.trackers.spatial.ShellSearchTest;
 import adris.altoclef.util.*;
+import adris.altoclef.util.collections.LongCollectionsTest;
+import adris.altoclef.util.helpers.ProjectileHelperTest;
 import adris.altoclef.util.helpers.WorldHelper;
 import net.minecraft.block.Block;
 import net.minecraft.block.Blocks;
@@ -128,6 +134,24 @@ public class Playground {
                 // None specified
                 Debug.logWarning("Please specify a test (ex. stacked, bed, terminate)");
                 break;
+            case "scanner":
+                ChunkSectionScannerTest.test();
+                break;
+            case "collections":
+                LongCollectionsTest.test();
+                break;
+            case "blocksnapshot":
+                BlockTrackerSnapshotTest.test(mod);
+                break;
+            case "shells":
+                ShellSearchTest.test(mod.getWorld(), mod.getPlayer().getPos());
+                break;
+            case "entityindex":
+                EntityTypeIndexTest.test(mod.getWorld());
+                break;
+            case "projectiles":
+                ProjectileHelperTest.test();
+                break;
             case "sign":
                 mod.runUserTask(new PlaceSignTask("Hello there!"));
                 break;
@@ -11,6 +11,7 @@ import adris.altoclef.tasks.movement.RunAwayFromHostilesTask;
 import adris.altoclef.tasks.speedrun.DragonBreathTracker;
 import adris.altoclef.tasksystem.TaskRunner;
 import adris.altoclef.util.baritone.CachedProjectile;
+import adris.altoclef.util.baritone.ProjectileThreats;
 import adris.altoclef.util.helpers.*;
 import adris.altoclef.util.slots.PlayerSlot;
 import adris.altoclef.util.slots.Slot;
@@ -453,7 +454,10 @@ public class MobDefenseChain extends SingleTaskChain {
         List<CachedProjectile> projectiles = mod.getEntityTracker().getProjectiles();
         try {
             if (!projectiles.isEmpty()) {
-                for (CachedProjectile projectile : projectiles) {
+                // Every projectile's closest approach to us, in one go.
+                ProjectileThreats threats = ProjectileThreats.evaluate(projectiles, mod.getPlayer().getPos());
+                for (int i = 0; i < threats.size(); ++i) {
+                    CachedProjectile projectile = threats.getProjectile(i);
                     if (projectile.position.squaredDistanceTo(mod.getPlayer().getPos()) < 150) {
                         boolean isGhastBall = projectile.projectileType == FireballEntity.class;
                         if (isGhastBall) {
@@ -483,7 +487,7 @@ public class MobDefenseChain extends SingleTaskChain {
                             }
                         }
 
-                        Vec3d expectedHit = ProjectileHelper.calculateArrowClosestApproach(projectile, mod.getPlayer());
+                        Vec3d expectedHit = threats.getClosestPoint(i);
 
                         Vec3d delta = mod.getPlayer().getPos().subtract(expectedHit);
 
@@ -519,55 +523,18 @@ public class MobDefenseChain extends SingleTaskChain {
     private Optional<Entity> getUniversallyDangerousMob(AltoClef mod) {
         // Wither skeletons are dangerous because of the wither effect. Oof kinda obvious.
         // If we merely force field them, we will run into them and get the wither effect which will kill us.
-        Optional<Entity> warden = mod.getEntityTracker().getClosestEntity(WardenEntity.class);
-        if (warden.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (warden.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, warden.get())) {
-                return warden;
-            }
-        }
-        Optional<Entity> wither = mod.getEntityTracker().getClosestEntity(WitherEntity.class);
-        if (wither.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (wither.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, wither.get())) {
-                return wither;
-            }
-        }
-        Optional<Entity> witherSkeleton = mod.getEntityTracker().getClosestEntity(WitherSkeletonEntity.class);
-        if (witherSkeleton.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (witherSkeleton.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, witherSkeleton.get())) {
-                return witherSkeleton;
-            }
-        }
         // Hoglins are dangerous because we can't push them with the force field.
         // If we merely force field them and stand still our health will slowly be chipped away until we die
-        Optional<Entity> hoglin = mod.getEntityTracker().getClosestEntity(HoglinEntity.class);
-        if (hoglin.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (hoglin.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, hoglin.get())) {
-                return hoglin;
-            }
-        }
-        Optional<Entity> zoglin = mod.getEntityTracker().getClosestEntity(ZoglinEntity.class);
-        if (zoglin.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (zoglin.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, zoglin.get())) {
-                return zoglin;
-            }
-        }
-        Optional<Entity> piglinBrute = mod.getEntityTracker().getClosestEntity(PiglinBruteEntity.class);
-        if (piglinBrute.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (piglinBrute.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, piglinBrute.get())) {
-                return piglinBrute;
-            }
-        }
-        Optional<Entity> vindicator = mod.getEntityTracker().getClosestEntity(VindicatorEntity.class);
-        if (vindicator.isPresent()) {
-            double range = SAFE_KEEP_DISTANCE - 2;
-            if (vindicator.get().squaredDistanceTo(mod.getPlayer()) < range * range && EntityHelper.isAngryAtPlayer(mod, vindicator.get())) {
-                return vindicator;
+        Class[] dangerous = new Class[]{
+                WardenEntity.class, WitherEntity.class, WitherSkeletonEntity.class, HoglinEntity.class,
+                ZoglinEntity.class, PiglinBruteEntity.class, VindicatorEntity.class
+        };
+        double range = SAFE_KEEP_DISTANCE - 2;
+        for (Class type : dangerous) {
+            // Only looks at the few cells around us, however many mobs are loaded.
+            Optional<Entity> mob = mod.getEntityTracker().getClosestEntity(mod.getPlayer().getPos(), range, entity -> EntityHelper.isAngryAtPlayer(mod, entity), type);
+            if (mob.isPresent()) {
+                return mob;
             }
         }
         return Optional.empty();
@@ -0,0 +1,56 @@
+package adris.altoclef.commands;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.commandsystem.Arg;
+import adris.altoclef.commandsystem.ArgParser;
+import adris.altoclef.commandsystem.Command;
+import adris.altoclef.commandsystem.CommandException;
+import adris.altoclef.eventbus.EventBus;
+
+import java.util.List;
+
+public class EventStatsCommand extends Command {
+
+    private static final int MAX_LINES = 20;
+
+    public EventStatsCommand() throws CommandException {
+        super("eventstats", "Time event subscribers. start/stop/reset profiling, or show the slowest subscribers", new Arg(Action.class, "action", Action.SHOW, 0));
+    }
+
+    @Override
+    protected void call(AltoClef mod, ArgParser parser) throws CommandException {
+        Action action = parser.get(Action.class);
+        switch (action) {
+            case START:
+                EventBus.setProfiling(true);
+                mod.log("Event subscriber profiling started.");
+                break;
+            case STOP:
+                EventBus.setProfiling(false);
+                mod.log("Event subscriber profiling stopped.");
+                break;
+            case RESET:
+                EventBus.resetProfile();
+                mod.log("Event subscriber profile cleared.");
+                break;
+            case SHOW:
+                List<String> profile = EventBus.getProfile();
+                mod.log("EVENT SUBSCRIBERS (" + (EventBus.isProfiling() ? "profiling" : "not profiling") + "):");
+                if (profile.isEmpty()) {
+                    mod.log("Nothing recorded. Run \"eventstats start\" first.");
+                }
+                for (int i = 0; i < Math.min(profile.size(), MAX_LINES); ++i) {
+                    mod.log(profile.get(i));
+                }
+                break;
+        }
+        finish();
+    }
+
+    public enum Action {
+        SHOW,
+        START,
+        STOP,
+        RESET
+    }
+}
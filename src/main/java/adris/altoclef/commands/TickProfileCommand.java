@@ -0,0 +1,64 @@
+package adris.altoclef.commands;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.commandsystem.Arg;
+import adris.altoclef.commandsystem.ArgParser;
+import adris.altoclef.commandsystem.Command;
+import adris.altoclef.commandsystem.CommandException;
+import adris.altoclef.tasksystem.Task;
+import adris.altoclef.tasksystem.TickProfiler;
+
+import java.io.File;
+
+public class TickProfileCommand extends Command {
+
+    private static final int MAX_LINES = 15;
+
+    public TickProfileCommand() throws CommandException {
+        super("tickprofile", "Profile where task/chain tick time goes. start, stop (and export), export, or show the slowest paths", new Arg(Action.class, "action", Action.SHOW, 0));
+    }
+
+    @Override
+    protected void call(AltoClef mod, ArgParser parser) throws CommandException {
+        Action action = parser.get(Action.class);
+        TickProfiler profiler = mod.getTaskRunner().getProfiler();
+        switch (action) {
+            case START:
+                profiler.start();
+                mod.log("Tick profiling started, keeping the last 30 seconds.");
+                break;
+            case STOP:
+                profiler.stop();
+                mod.log("Tick profiling stopped.");
+                export(mod, profiler);
+                break;
+            case EXPORT:
+                export(mod, profiler);
+                break;
+            case SHOW:
+                mod.log("SLOWEST TICK PATHS (" + (profiler.isCapturing() ? "profiling" : "not profiling") + "):");
+                for (String line : profiler.getTopPaths(MAX_LINES)) {
+                    mod.log(line);
+                }
+                mod.log(Task.getSubtaskCacheStats());
+                break;
+        }
+        finish();
+    }
+
+    private static void export(AltoClef mod, TickProfiler profiler) {
+        File file = profiler.export();
+        if (file != null) {
+            mod.log("Wrote collapsed stacks to " + file.getPath() + " (flamegraph.pl or speedscope can read it)");
+        } else {
+            mod.logWarning("Couldn't write the tick profile, see the log.");
+        }
+    }
+
+    public enum Action {
+        SHOW,
+        START,
+        STOP,
+        EXPORT
+    }
+}
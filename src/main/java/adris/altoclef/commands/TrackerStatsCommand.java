@@ -0,0 +1,25 @@
+package adris.altoclef.commands;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.commandsystem.ArgParser;
+import adris.altoclef.commandsystem.Command;
+
+public class TrackerStatsCommand extends Command {
+    public TrackerStatsCommand() {
+        super("trackerstats", "Show how often each tracker (and entity tracker category, and the world snapshot) updated and how long it took");
+    }
+
+    @Override
+    protected void call(AltoClef mod, ArgParser parser) {
+        mod.log("TRACKERS:");
+        for (String line : mod.getTrackerManager().getUpdateStats()) {
+            mod.log(line);
+        }
+        mod.log("ENTITY TRACKER CATEGORIES:");
+        for (String line : mod.getEntityTracker().getCategoryStats()) {
+            mod.log(line);
+        }
+        mod.log(mod.getTrackerManager().getSnapshotStats());
+        finish();
+    }
+}
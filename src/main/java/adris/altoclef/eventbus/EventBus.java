@@ -1,79 +1,209 @@
 package adris.altoclef.eventbus;
 
-import net.minecraft.util.Pair;
-
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
  * A static class to solve dependency issues. Lets us send and receive events globally, decoupling our codebase.
  * <p>
  * Technically `ConfigHelper` does something like this, but here is a more general case.
+ * <p>
+ * Every event type has an array of subscribers that's never modified, only replaced (copy on write). Publishing
+ * just walks whichever array is current, so it takes no locks and allocates nothing, and subscribing or
+ * unsubscribing mid publish (even from another thread) can't break it. Someone subscribing during a publish gets
+ * the next event, someone unsubscribing during one is skipped for the rest of it.
+ * <p>
+ * Subscribing to a class or interface gets you every event that is one, so you can listen to a whole family of
+ * events at once. Which subscribers an event class goes to is worked out the first time it's published and cached
+ * until the subscriptions change, so publishing still only walks one array. Subscribers are called in the order they
+ * subscribed, whatever type they subscribed to.
+ * <p>
+ * With {@link #setProfiling} on, every subscriber call is timed and added up per event type and subscribing class,
+ * see {@link #getProfile}. Off, it costs one volatile read per call.
+ * <p>
+ * Subscribers are called right away on the publishing thread, unless they subscribe with an {@link EventLane}, in
+ * which case the event is queued and they're called on that lane's thread. Use that for slow subscribers to events
+ * published from somewhere time sensitive (like chunk loading), as long as they're fine running off the client thread.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class EventBus {
 
-    private static final HashMap<Class, List<Subscription>> _topics = new HashMap<>();
-    private static final List<Pair<Class, Subscription>> _toAdd = new ArrayList<>();
-    private static boolean _lock;
+    private static final Subscription[] NO_SUBSCRIBERS = new Subscription[0];
 
-    public static <T> void publish(T event) {
-        Class type = event.getClass();
+    // Subscribers by the type they subscribed to.
+    private static final ConcurrentHashMap<Class, Subscription[]> _topics = new ConcurrentHashMap<>();
+    // Subscribers by the exact event class they get called for, including everyone subscribed to a supertype.
+    private static final ConcurrentHashMap<Class, Subscription[]> _resolved = new ConcurrentHashMap<>();
+    // Held while changing subscriptions or resolving, so nothing resolved from old subscriptions gets cached.
+    private static final Object _lock = new Object();
+    private static long _nextSequence;
+
+    private static volatile boolean _profiling;
+    // By "event type -> subscribing class".
+    private static final ConcurrentHashMap<String, SubscriberStats> _stats = new ConcurrentHashMap<>();
 
-        // Add all subscriptions we need to add
-        for (Pair<Class, Subscription> toAdd : _toAdd) {
-            subscribeInternal(toAdd.getLeft(), toAdd.getRight());
+    public static <T> void publish(T event) {
+        Subscription[] subscribers = _resolved.get(event.getClass());
+        if (subscribers == null) {
+            subscribers = resolve(event.getClass());
         }
-        _toAdd.clear();
-
-        if (_topics.containsKey(type)) {
-            List<Subscription> subscribers = _topics.get(type);
-
-            // Subscriptions can be deleted while they're called
-            List<Subscription> toDelete = new ArrayList<>();
-
-            // Go through our subscription list. We shouldn't modify the list while we're iterating it.
-            _lock = true;
-            for (Subscription subRaw : subscribers) {
-                Subscription<T> sub;
-                try {
-                    sub = (Subscription<T>) subRaw;
-                    if (sub.shouldDelete()) {
-                        toDelete.add(sub);
-                    } else {
-                        sub.accept(event);
-                    }
-                } catch (ClassCastException e) {
-                    System.err.println("TRIED PUBLISHING MISMAPPED EVENT: " + event);
-                    e.printStackTrace();
+        for (Subscription subRaw : subscribers) {
+            // Unsubscribed after we grabbed the array.
+            if (subRaw.shouldDelete()) continue;
+            try {
+                Subscription<T> sub = (Subscription<T>) subRaw;
+                EventLane lane = sub.getLane();
+                if (lane != null) {
+                    lane.offer(sub, event);
+                } else {
+                    sub.accept(event);
                 }
+            } catch (ClassCastException e) {
+                System.err.println("TRIED PUBLISHING MISMAPPED EVENT: " + event);
+                e.printStackTrace();
             }
-            // Delete all subscriptions
-            _lock = false;
         }
     }
 
-    private static <T> void subscribeInternal(Class<T> type, Subscription<T> sub) {
-        if (!_topics.containsKey(type)) {
-            _topics.put(type, new ArrayList<>());
-        }
-        _topics.get(type).add(sub);
+    public static <T> Subscription<T> subscribe(Class<T> type, Consumer<T> consumeEvent) {
+        return subscribe(type, null, consumeEvent);
     }
 
-    public static <T> Subscription<T> subscribe(Class<T> type, Consumer<T> consumeEvent) {
+    /**
+     * @param lane Where `consumeEvent` gets called. Null to call it right away on the publishing thread.
+     */
+    public static <T> Subscription<T> subscribe(Class<T> type, EventLane lane, Consumer<T> consumeEvent) {
         Subscription<T> sub = new Subscription<>(consumeEvent);
-        if (_lock) {
-            _toAdd.add(new Pair<>(type, sub));
-        } else {
-            subscribeInternal(type, sub);
+        sub.setType(type);
+        sub.setLane(lane);
+        String label = type.getSimpleName() + " -> " + sub.getSubscriberName();
+        sub.setStats(_stats.computeIfAbsent(label, SubscriberStats::new));
+        synchronized (_lock) {
+            sub.setSequence(_nextSequence++);
+            _topics.compute(type, (key, subscribers) -> {
+                if (subscribers == null) return new Subscription[]{sub};
+                Subscription[] result = Arrays.copyOf(subscribers, subscribers.length + 1);
+                result[subscribers.length] = sub;
+                return result;
+            });
+            _resolved.clear();
         }
         return sub;
     }
 
     public static <T> void unsubscribe(Subscription<T> subscription) {
-        if (subscription != null)
-            subscription.delete();
+        if (subscription == null) return;
+        // Mark first, so anyone publishing off an older array skips it too.
+        subscription.delete();
+        Class type = subscription.getType();
+        if (type == null) return;
+        synchronized (_lock) {
+            removeInternal(type, subscription);
+            _resolved.clear();
+        }
+    }
+
+    private static void removeInternal(Class type, Subscription subscription) {
+        _topics.computeIfPresent(type, (key, subscribers) -> {
+            int index = -1;
+            for (int i = 0; i < subscribers.length; ++i) {
+                if (subscribers[i] == subscription) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == -1) return subscribers;
+            // Returning null drops the topic entirely.
+            if (subscribers.length == 1) return null;
+            Subscription[] result = new Subscription[subscribers.length - 1];
+            System.arraycopy(subscribers, 0, result, 0, index);
+            System.arraycopy(subscribers, index + 1, result, index, subscribers.length - index - 1);
+            return result;
+        });
+    }
+
+    /**
+     * Gathers everyone subscribed to `eventClass` or any of its superclasses and interfaces, and caches it.
+     */
+    private static Subscription[] resolve(Class eventClass) {
+        synchronized (_lock) {
+            Subscription[] cached = _resolved.get(eventClass);
+            if (cached != null) return cached;
+            List<Subscription> result = new ArrayList<>();
+            Set<Class> visited = new HashSet<>();
+            ArrayDeque<Class> toVisit = new ArrayDeque<>();
+            toVisit.add(eventClass);
+            while (!toVisit.isEmpty()) {
+                Class type = toVisit.poll();
+                if (!visited.add(type)) continue;
+                Subscription[] subscribers = _topics.get(type);
+                if (subscribers != null) {
+                    result.addAll(Arrays.asList(subscribers));
+                }
+                if (type.getSuperclass() != null) {
+                    toVisit.add(type.getSuperclass());
+                }
+                toVisit.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            Subscription[] resolved = result.isEmpty() ? NO_SUBSCRIBERS : result.toArray(Subscription[]::new);
+            Arrays.sort(resolved, Comparator.comparingLong(Subscription::getSequence));
+            _resolved.put(eventClass, resolved);
+            return resolved;
+        }
+    }
+
+    /**
+     * @return How many subscribers an event of exactly this class goes to, counting supertype subscribers.
+     */
+    public static int getHandlerCount(Class<?> eventClass) {
+        Subscription[] subscribers = _resolved.get(eventClass);
+        return (subscribers != null ? subscribers : resolve(eventClass)).length;
+    }
+
+    public static boolean isProfiling() {
+        return _profiling;
+    }
+
+    public static void setProfiling(boolean profiling) {
+        _profiling = profiling;
+    }
+
+    /**
+     * @return How many times each subscriber was called and how long it took, slowest in total first.
+     */
+    public static List<String> getProfile() {
+        // Copied first, lanes keep adding to them while we sort.
+        List<SubscriberStats.Snapshot> stats = new ArrayList<>(_stats.size());
+        for (SubscriberStats stat : _stats.values()) {
+            SubscriberStats.Snapshot snapshot = stat.snapshot();
+            if (snapshot.totalNanos() == 0) continue;
+            stats.add(snapshot);
+        }
+        stats.sort(Comparator.comparingLong(SubscriberStats.Snapshot::totalNanos).reversed());
+        List<String> result = new ArrayList<>(stats.size());
+        for (SubscriberStats.Snapshot stat : stats) {
+            result.add(stat.toString());
+        }
+        return result;
+    }
+
+    public static void resetProfile() {
+        for (SubscriberStats stat : _stats.values()) {
+            stat.reset();
+        }
+    }
+
+    /**
+     * @return How many subscribers subscribed to exactly this type.
+     */
+    public static int getSubscriberCount(Class<?> type) {
+        return _topics.getOrDefault(type, NO_SUBSCRIBERS).length;
     }
 }
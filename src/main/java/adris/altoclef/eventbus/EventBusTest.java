@@ -1,23 +1,252 @@
 package adris.altoclef.eventbus;
 
+import adris.altoclef.util.helpers.HarnessHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 public class EventBusTest {
 
+    private static final HarnessHelper HARNESS = new HarnessHelper("EventBus");
+
     public static void test() {
-        Subscription<TestEvent> a = EventBus.subscribe(TestEvent.class, evt -> System.out.println("A: " + evt.val));
+        testPublishOrder();
+        testUnsubscribe();
+        testSubscribeWhilePublishing();
+        testUnsubscribeWhilePublishing();
+        testHierarchyDispatch();
+        testProfiling();
+        try {
+            testLaneOrdering();
+            testLaneOrderingPerPublisher();
+            testLaneDropOldest();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("EventBus lane check interrupted", e);
+        }
+        HARNESS.passed();
+        benchmarkPublish();
+    }
+
+    private static void testPublishOrder() {
+        List<String> received = new ArrayList<>();
+        Subscription<TestEvent> a = EventBus.subscribe(TestEvent.class, evt -> received.add("A" + evt.val));
         EventBus.publish(new TestEvent(1));
-        Subscription<TestEvent> b = EventBus.subscribe(TestEvent.class, evt -> System.out.println("B: " + evt.val));
+        Subscription<TestEvent> b = EventBus.subscribe(TestEvent.class, evt -> received.add("B" + evt.val));
         EventBus.publish(new TestEvent(2));
+        HARNESS.check(received.equals(List.of("A1", "A2", "B2")), "subscribers called in order", received);
+        EventBus.unsubscribe(a);
+        EventBus.unsubscribe(b);
+    }
+
+    private static void testUnsubscribe() {
+        List<String> received = new ArrayList<>();
+        Subscription<TestEvent> a = EventBus.subscribe(TestEvent.class, evt -> received.add("A" + evt.val));
+        Subscription<TestEvent> b = EventBus.subscribe(TestEvent.class, evt -> received.add("B" + evt.val));
         EventBus.unsubscribe(a);
         EventBus.publish(new TestEvent(3));
+        HARNESS.check(received.equals(List.of("B3")), "unsubscribed handler isn't called", received);
+        HARNESS.check(EventBus.getSubscriberCount(TestEvent.class) == 1, "unsubscribed handler is removed", EventBus.getSubscriberCount(TestEvent.class));
         EventBus.unsubscribe(b);
+        EventBus.unsubscribe(b);
+        EventBus.unsubscribe(null);
         EventBus.publish(new TestEvent(4));
+        HARNESS.check(received.equals(List.of("B3")), "nothing called once everyone's gone", received);
+        HARNESS.check(EventBus.getSubscriberCount(TestEvent.class) == 0, "empty topic is dropped", EventBus.getSubscriberCount(TestEvent.class));
+    }
+
+    private static void testSubscribeWhilePublishing() {
+        List<String> received = new ArrayList<>();
+        List<Subscription<TestEvent>> added = new ArrayList<>();
+        Subscription<TestEvent> a = EventBus.subscribe(TestEvent.class, evt -> {
+            received.add("A" + evt.val);
+            if (added.isEmpty()) {
+                added.add(EventBus.subscribe(TestEvent.class, inner -> received.add("B" + inner.val)));
+            }
+        });
+        EventBus.publish(new TestEvent(5));
+        EventBus.publish(new TestEvent(6));
+        HARNESS.check(received.equals(List.of("A5", "A6", "B6")), "subscriber added mid publish gets the next event", received);
+        EventBus.unsubscribe(a);
+        EventBus.unsubscribe(added.get(0));
+    }
+
+    private static void testUnsubscribeWhilePublishing() {
+        List<String> received = new ArrayList<>();
+        List<Subscription<TestEvent>> later = new ArrayList<>();
+        Subscription<TestEvent> a = EventBus.subscribe(TestEvent.class, evt -> {
+            received.add("A" + evt.val);
+            EventBus.unsubscribe(later.get(0));
+        });
+        later.add(EventBus.subscribe(TestEvent.class, evt -> received.add("B" + evt.val)));
+        EventBus.publish(new TestEvent(7));
+        HARNESS.check(received.equals(List.of("A7")), "subscriber removed mid publish is skipped", received);
+        EventBus.unsubscribe(a);
+    }
+
+    private static void testHierarchyDispatch() {
+        List<String> received = new ArrayList<>();
+        Subscription<TestFamilyEvent> family = EventBus.subscribe(TestFamilyEvent.class, evt -> received.add("family" + evt.getVal()));
+        Subscription<TestEvent> parent = EventBus.subscribe(TestEvent.class, evt -> received.add("parent" + evt.val));
+        Subscription<TestChildEvent> child = EventBus.subscribe(TestChildEvent.class, evt -> received.add("child" + evt.val));
+        EventBus.publish(new TestEvent(1));
+        EventBus.publish(new TestChildEvent(2));
+        HARNESS.check(received.equals(List.of("family1", "parent1", "family2", "parent2", "child2")), "supertype subscribers get subtypes, in subscription order", received);
+        HARNESS.check(EventBus.getHandlerCount(TestChildEvent.class) == 3, "resolution counts every supertype", EventBus.getHandlerCount(TestChildEvent.class));
+
+        // Changing subscriptions has to throw out what we resolved.
+        received.clear();
+        EventBus.unsubscribe(family);
+        Subscription<Object> everything = EventBus.subscribe(Object.class, evt -> received.add("object"));
+        EventBus.publish(new TestChildEvent(3));
+        HARNESS.check(received.equals(List.of("parent3", "child3", "object")), "resolution is redone when subscriptions change", received);
+        EventBus.unsubscribe(parent);
+        EventBus.unsubscribe(child);
+        EventBus.unsubscribe(everything);
+        HARNESS.check(EventBus.getHandlerCount(TestChildEvent.class) == 0, "nothing resolved once everyone's gone", EventBus.getHandlerCount(TestChildEvent.class));
+    }
+
+    private static void testProfiling() {
+        Subscription<TestEvent> sub = EventBus.subscribe(TestEvent.class, evt -> {
+        });
+        EventBus.resetProfile();
+        EventBus.publish(new TestEvent(1));
+        HARNESS.check(EventBus.getProfile().isEmpty(), "nothing recorded while not profiling", EventBus.getProfile());
+        EventBus.setProfiling(true);
+        EventBus.publish(new TestEvent(2));
+        EventBus.publish(new TestEvent(3));
+        EventBus.setProfiling(false);
+        List<String> profile = EventBus.getProfile();
+        HARNESS.check(profile.size() == 1 && profile.get(0).startsWith("TestEvent -> EventBusTest: called 2 times"), "profiling labels and counts calls", profile);
+        EventBus.resetProfile();
+        EventBus.unsubscribe(sub);
+    }
+
+    private static void testLaneOrdering() throws InterruptedException {
+        final int count = 10000;
+        EventLane lane = new EventLane("test ordering", 16, EventLane.Backpressure.BLOCK);
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        Subscription<TestEvent> a = EventBus.subscribe(TestEvent.class, lane, evt -> {
+            first.add(evt.val);
+            threads.add(Thread.currentThread());
+        });
+        Subscription<TestEvent> b = EventBus.subscribe(TestEvent.class, lane, evt -> second.add(evt.val));
+        for (int i = 0; i < count; ++i) {
+            EventBus.publish(new TestEvent(i));
+        }
+        HARNESS.check(lane.awaitIdle(10000), "lane drains", lane);
+        HARNESS.check(first.size() == count && second.size() == count, "lane delivers everything", lane);
+        for (int i = 0; i < count; ++i) {
+            HARNESS.check(first.get(i) == i && second.get(i) == i, "lane delivers in publish order", i);
+        }
+        HARNESS.check(!threads.contains(Thread.currentThread()), "lane subscribers run on the lane's thread", threads.get(0));
+        EventBus.unsubscribe(a);
+        EventBus.unsubscribe(b);
     }
 
-    static class TestEvent {
+    private static void testLaneOrderingPerPublisher() throws InterruptedException {
+        final int publishers = 4, count = 5000;
+        EventLane lane = new EventLane("test publishers", 8, EventLane.Backpressure.BLOCK);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Subscription<TestEvent> sub = EventBus.subscribe(TestEvent.class, lane, evt -> received.add(evt.val));
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < publishers; ++p) {
+            final int publisher = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < count; ++i) {
+                    EventBus.publish(new TestEvent(publisher * count + i));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        HARNESS.check(lane.awaitIdle(10000), "lane drains", lane);
+        HARNESS.check(received.size() == publishers * count, "lane delivers everything from every publisher", lane);
+        int[] last = new int[publishers];
+        Arrays.fill(last, -1);
+        for (int val : received) {
+            int publisher = val / count;
+            HARNESS.check(val % count > last[publisher], "lane keeps each publisher's order", val);
+            last[publisher] = val % count;
+        }
+        EventBus.unsubscribe(sub);
+    }
+
+    private static void testLaneDropOldest() throws InterruptedException {
+        final int capacity = 4;
+        EventLane lane = new EventLane("test drop oldest", capacity, EventLane.Backpressure.DROP_OLDEST);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Subscription<TestEvent> sub = EventBus.subscribe(TestEvent.class, lane, evt -> {
+            if (evt.val == 0) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.add(evt.val);
+        });
+        // The first one holds up the worker, so the rest pile up in the queue.
+        EventBus.publish(new TestEvent(0));
+        started.await();
+        for (int i = 1; i <= 10; ++i) {
+            EventBus.publish(new TestEvent(i));
+        }
+        release.countDown();
+        HARNESS.check(lane.awaitIdle(10000), "lane drains", lane);
+        HARNESS.check(received.equals(List.of(0, 7, 8, 9, 10)), "full lane drops the oldest", received);
+        HARNESS.check(lane.getDroppedCount() == 10 - capacity, "dropped events are counted", lane);
+        EventBus.unsubscribe(sub);
+    }
+
+    private static void benchmarkPublish() {
+        TestEvent event = new TestEvent(1);
+        for (int subscriberCount : new int[]{1, 10, 100}) {
+            List<Subscription<TestEvent>> subscriptions = new ArrayList<>();
+            long[] sink = new long[1];
+            for (int i = 0; i < subscriberCount; ++i) {
+                subscriptions.add(EventBus.subscribe(TestEvent.class, evt -> sink[0] += evt.val));
+            }
+            double nanosPerPublish = HarnessHelper.time(1_000_000, i -> {
+                EventBus.publish(event);
+                return sink[0];
+            });
+            HARNESS.log("%d subscribers, %.1fns per publish (%.2fM publishes/s)", subscriberCount, nanosPerPublish, 1000.0 / nanosPerPublish);
+            for (Subscription<TestEvent> sub : subscriptions) {
+                EventBus.unsubscribe(sub);
+            }
+        }
+    }
+
+    interface TestFamilyEvent {
+        int getVal();
+    }
+
+    static class TestEvent implements TestFamilyEvent {
         public int val;
 
         public TestEvent(int val) {
             this.val = val;
         }
+
+        @Override
+        public int getVal() {
+            return val;
+        }
+    }
+
+    static class TestChildEvent extends TestEvent {
+        public TestChildEvent(int val) {
+            super(val);
+        }
     }
 }
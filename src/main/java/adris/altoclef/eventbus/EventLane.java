@@ -0,0 +1,177 @@
+package adris.altoclef.eventbus;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A queue and worker thread that subscribers can ask to be called on, instead of on whatever thread published.
+ * <p>
+ * Anything can publish to a lane, only its worker takes from it. The queue is bounded, and what happens when it's
+ * full is up to the lane's {@link Backpressure}. Events come out of a lane in the order they went in, per publishing
+ * thread, except for {@link Backpressure#CALLER_RUNS} which runs an overflowing event right away.
+ * <p>
+ * The worker only starts once something's actually published to the lane.
+ */
+public class EventLane {
+
+    private final String _name;
+    private final Backpressure _backpressure;
+    private final ArrayBlockingQueue<Delivery> _queue;
+
+    // Queued or being handled, so we can tell when we're idle.
+    private final AtomicLong _pending = new AtomicLong();
+    private final AtomicLong _delivered = new AtomicLong();
+    private final AtomicLong _dropped = new AtomicLong();
+    private final AtomicLong _ranOnCaller = new AtomicLong();
+    private final Object _idleLock = new Object();
+
+    private Thread _worker;
+
+    public EventLane(String name, int capacity, Backpressure backpressure) {
+        _name = name;
+        _backpressure = backpressure;
+        _queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    <T> void offer(Subscription<T> subscription, T event) {
+        ensureStarted();
+        Delivery delivery = new Delivery(subscription, event);
+        _pending.incrementAndGet();
+        switch (_backpressure) {
+            case BLOCK -> {
+                try {
+                    _queue.put(delivery);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped();
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!_queue.offer(delivery)) {
+                    dropped();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!_queue.offer(delivery)) {
+                    if (_queue.poll() != null) {
+                        dropped();
+                    }
+                }
+            }
+            case CALLER_RUNS -> {
+                if (!_queue.offer(delivery)) {
+                    _ranOnCaller.incrementAndGet();
+                    deliver(delivery);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until everything published so far has been handled (or dropped).
+     *
+     * @return Whether we got there before the timeout.
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (_idleLock) {
+            while (_pending.get() != 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                _idleLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    public int getQueueSize() {
+        return _queue.size();
+    }
+
+    public long getDeliveredCount() {
+        return _delivered.get();
+    }
+
+    public long getDroppedCount() {
+        return _dropped.get();
+    }
+
+    public long getRanOnCallerCount() {
+        return _ranOnCaller.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s lane: %d queued, %d delivered, %d dropped, %d ran on caller (%s)",
+                _name, getQueueSize(), getDeliveredCount(), getDroppedCount(), getRanOnCallerCount(), _backpressure);
+    }
+
+    private synchronized void ensureStarted() {
+        if (_worker != null) return;
+        _worker = new Thread(this::run, "AltoClef event lane: " + _name);
+        _worker.setDaemon(true);
+        _worker.start();
+    }
+
+    private void run() {
+        while (true) {
+            Delivery delivery;
+            try {
+                delivery = _queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            deliver(delivery);
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void deliver(Delivery delivery) {
+        try {
+            // Could have unsubscribed while this was queued.
+            if (!delivery.subscription.shouldDelete()) {
+                ((Subscription) delivery.subscription).accept(delivery.event);
+            }
+            _delivered.incrementAndGet();
+        } catch (Exception e) {
+            System.err.println("Event lane " + _name + ": subscriber threw while handling " + delivery.event);
+            e.printStackTrace();
+        } finally {
+            finished();
+        }
+    }
+
+    private void dropped() {
+        _dropped.incrementAndGet();
+        finished();
+    }
+
+    private void finished() {
+        if (_pending.decrementAndGet() == 0) {
+            synchronized (_idleLock) {
+                _idleLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * What to do when someone publishes to a full lane.
+     */
+    public enum Backpressure {
+        // Wait for room. Never loses anything, but stalls the publisher.
+        BLOCK,
+        // Throw away the event being published.
+        DROP_NEWEST,
+        // Throw away the oldest queued event to make room.
+        DROP_OLDEST,
+        // Run the subscriber right away on the publishing thread, ahead of whatever's queued.
+        CALLER_RUNS
+    }
+
+    private record Delivery(Subscription<?> subscription, Object event) {
+    }
+}
@@ -0,0 +1,52 @@
+package adris.altoclef.eventbus;
+
+/**
+ * How many times subscribers with the same label (event type and subscribing class) were called and how long they
+ * took. Shared between subscriptions, so a task that subscribes every time it starts still adds up in one place.
+ */
+class SubscriberStats {
+
+    private final String _label;
+
+    private long _calls;
+    private long _totalNanos;
+    private long _maxNanos;
+
+    public SubscriberStats(String label) {
+        _label = label;
+    }
+
+    // Lanes call this from their own threads.
+    public synchronized void record(long nanos) {
+        _calls++;
+        _totalNanos += nanos;
+        _maxNanos = Math.max(_maxNanos, nanos);
+    }
+
+    /**
+     * @return What's been added up so far, as one consistent copy that won't change under whoever's reading it.
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(_label, _calls, _totalNanos, _maxNanos);
+    }
+
+    public synchronized void reset() {
+        _calls = 0;
+        _totalNanos = 0;
+        _maxNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    public record Snapshot(String label, long calls, long totalNanos, long maxNanos) {
+        @Override
+        public String toString() {
+            double averageMicros = calls == 0 ? 0 : totalNanos / 1000.0 / calls;
+            return String.format("%s: called %d times, avg %.1fus, max %.1fus, total %.1fms",
+                    label, calls, averageMicros, maxNanos / 1000.0, totalNanos / 1e6);
+        }
+    }
+}
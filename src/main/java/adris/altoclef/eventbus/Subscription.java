@@ -5,14 +5,44 @@ import java.util.function.Consumer;
 // A wrapper object for event subscription
 public class Subscription<T> {
     private final Consumer<T> _callback;
-    private boolean _shouldDelete;
+    // Read by publishers on other threads.
+    private volatile boolean _shouldDelete;
+    // What we're subscribed to, so we can be found again when unsubscribing.
+    private Class<T> _type;
+    // Null if we're called on the publishing thread.
+    private EventLane _lane;
+    // When we subscribed relative to everyone else, subscribers are called in this order.
+    private long _sequence;
+    // Where our timings go when profiling. Null if we weren't subscribed through the bus.
+    private SubscriberStats _stats;
 
     public Subscription(Consumer<T> callback) {
         _callback = callback;
     }
 
     public void accept(T event) {
-        _callback.accept(event);
+        if (_stats == null || !EventBus.isProfiling()) {
+            _callback.accept(event);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            _callback.accept(event);
+        } finally {
+            _stats.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return The class that subscribed, going by where our callback was written.
+     */
+    String getSubscriberName() {
+        String name = _callback.getClass().getName();
+        int lambda = name.indexOf("$$Lambda");
+        if (lambda != -1) {
+            name = name.substring(0, lambda);
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
     }
 
     public void delete() {
@@ -22,4 +52,32 @@ public class Subscription<T> {
     public boolean shouldDelete() {
         return _shouldDelete;
     }
+
+    Class<T> getType() {
+        return _type;
+    }
+
+    void setType(Class<T> type) {
+        _type = type;
+    }
+
+    EventLane getLane() {
+        return _lane;
+    }
+
+    void setLane(EventLane lane) {
+        _lane = lane;
+    }
+
+    long getSequence() {
+        return _sequence;
+    }
+
+    void setSequence(long sequence) {
+        _sequence = sequence;
+    }
+
+    void setStats(SubscriberStats stats) {
+        _stats = stats;
+    }
 }
@@ -1,8 +1,15 @@
 package adris.altoclef.eventbus.events;
 
+import adris.altoclef.eventbus.EventLane;
 import net.minecraft.world.chunk.WorldChunk;
 
 public class ChunkLoadEvent {
+    /**
+     * For subscribers that don't need to be called inside chunk loading. Never drops anything, if it falls too far
+     * behind the subscriber just runs on the client thread like it used to.
+     */
+    public static final EventLane LANE = new EventLane("chunk load", 1024, EventLane.Backpressure.CALLER_RUNS);
+
     public WorldChunk chunk;
 
     public ChunkLoadEvent(WorldChunk chunk) {
@@ -0,0 +1,14 @@
+package adris.altoclef.eventbus.events;
+
+import net.minecraft.entity.Entity;
+
+/**
+ * An entity started being tracked by the client world (spawned, or came into view).
+ */
+public class EntityAddedEvent {
+    public Entity entity;
+
+    public EntityAddedEvent(Entity entity) {
+        this.entity = entity;
+    }
+}
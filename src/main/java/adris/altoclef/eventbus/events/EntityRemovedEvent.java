@@ -0,0 +1,14 @@
+package adris.altoclef.eventbus.events;
+
+import net.minecraft.entity.Entity;
+
+/**
+ * An entity stopped being tracked by the client world (died, despawned, or went out of view).
+ */
+public class EntityRemovedEvent {
+    public Entity entity;
+
+    public EntityRemovedEvent(Entity entity) {
+        this.entity = entity;
+    }
+}
@@ -0,0 +1,34 @@
+package adris.altoclef.mixins;
+
+import adris.altoclef.eventbus.EventBus;
+import adris.altoclef.eventbus.events.EntityAddedEvent;
+import adris.altoclef.eventbus.events.EntityRemovedEvent;
+import net.minecraft.entity.Entity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Every entity the client world tracks (what world.getEntities() returns) comes and goes through here,
+ * whether it spawned, died or its chunk was (un)loaded.
+ */
+@Mixin(targets = "net.minecraft.client.world.ClientWorld$ClientEntityHandler")
+public class ClientEntityTrackingMixin {
+
+    @Inject(
+            method = "startTracking(Lnet/minecraft/entity/Entity;)V",
+            at = @At("TAIL")
+    )
+    private void onStartTracking(Entity entity, CallbackInfo ci) {
+        EventBus.publish(new EntityAddedEvent(entity));
+    }
+
+    @Inject(
+            method = "stopTracking(Lnet/minecraft/entity/Entity;)V",
+            at = @At("TAIL")
+    )
+    private void onStopTracking(Entity entity, CallbackInfo ci) {
+        EventBus.publish(new EntityRemovedEvent(entity));
+    }
+}
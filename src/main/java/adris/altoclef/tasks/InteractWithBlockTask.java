@@ -338,7 +338,7 @@ public class InteractWithBlockTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return false;
         //return _trying && !proc(mod).isActive();
     }
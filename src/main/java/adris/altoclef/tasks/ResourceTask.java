@@ -64,7 +64,7 @@ public abstract class ResourceTask extends Task implements ITaskCanForce {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return StorageHelper.itemTargetsMetInventoryNoCursor(mod, _itemTargets);
     }
 
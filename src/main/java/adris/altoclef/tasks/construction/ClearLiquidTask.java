@@ -40,7 +40,7 @@ public class ClearLiquidTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         if (mod.getChunkTracker().isChunkLoaded(_liquidPos)) {
             return mod.getWorld().getBlockState(_liquidPos).getFluidState().isEmpty();
         }
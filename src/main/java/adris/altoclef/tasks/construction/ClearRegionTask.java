@@ -41,7 +41,7 @@ public class ClearRegionTask extends Task implements ITaskRequiresGrounded {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         int x = _from.getX() - _to.getX();
         int y = _from.getY() - _to.getY();
         int z = _from.getZ() - _to.getZ();
@@ -384,7 +384,7 @@ public class DestroyBlockTask extends Task implements ITaskRequiresGrounded {
      * @return True if the block at the specified position is air, false otherwise.
      */
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Check if the world or position is null
         if (mod.getWorld() == null || _pos == null) {
             return false;
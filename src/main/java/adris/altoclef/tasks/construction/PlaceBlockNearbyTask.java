@@ -178,7 +178,7 @@ public class PlaceBlockNearbyTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _justPlaced != null && ArrayUtils.contains(_toPlace, mod.getWorld().getBlockState(_justPlaced).getBlock());
     }
 
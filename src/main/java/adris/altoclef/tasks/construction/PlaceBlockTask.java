@@ -162,7 +162,7 @@ public class PlaceBlockTask extends Task implements ITaskRequiresGrounded {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         assert MinecraftClient.getInstance().world != null;
         if (_useThrowaways) {
             return WorldHelper.isSolid(mod, _target);
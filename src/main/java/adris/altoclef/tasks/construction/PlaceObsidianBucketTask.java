@@ -216,7 +216,7 @@ public class PlaceObsidianBucketTask extends Task {
      * @return True if the task is finished, False otherwise.
      */
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Get the BlockTracker instance from the mod
         BlockTracker blockTracker = mod.getBlockTracker();
 
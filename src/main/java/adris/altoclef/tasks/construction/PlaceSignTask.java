@@ -135,7 +135,7 @@ public class PlaceSignTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _finished;
     }
 
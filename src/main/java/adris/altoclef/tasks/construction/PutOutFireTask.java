@@ -36,7 +36,7 @@ public class PutOutFireTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         BlockState s = mod.getWorld().getBlockState(_firePosition);
         return (s.getBlock() != Blocks.FIRE && s.getBlock() != Blocks.SOUL_FIRE);
     }
@@ -421,7 +421,7 @@ class DoCraftInTableTask extends DoStuffInContainerTask {
      * @return True if the mod is finished, false otherwise.
      */
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Check if the craft count is greater than or equal to the number of targets
         return _craftCount >= _targets.length;
     }
@@ -110,7 +110,7 @@ public class LootContainerTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _weDoneHere || (ContainerType.screenHandlerMatchesAny() &&
                 getAMatchingSlot(mod).isEmpty());
     }
@@ -107,8 +107,8 @@ public class SmeltInFurnaceTask extends ResourceTask {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
-        return super.isFinished(mod) || _doTask.isFinished(mod);
+    protected boolean checkFinished(AltoClef mod) {
+        return super.checkFinished(mod) || _doTask.isFinished(mod);
     }
 
     @Override
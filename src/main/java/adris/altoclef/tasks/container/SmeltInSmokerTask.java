@@ -109,8 +109,8 @@ public class SmeltInSmokerTask extends ResourceTask {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
-        return super.isFinished(mod) || _doTask.isFinished(mod);
+    protected boolean checkFinished(AltoClef mod) {
+        return super.checkFinished(mod) || _doTask.isFinished(mod);
     }
 
     @Override
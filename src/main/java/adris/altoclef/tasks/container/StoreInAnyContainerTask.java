@@ -142,7 +142,7 @@ public class StoreInAnyContainerTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // We've stored all items
         return _storedItems.getUnstoredItemTargetsYouCanStore(mod, _toStore).length == 0;
     }
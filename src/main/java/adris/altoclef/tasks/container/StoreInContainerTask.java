@@ -102,7 +102,7 @@ public class StoreInContainerTask extends AbstractDoToStorageContainerTask {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // We've stored all items
         return _storedItems != null && _storedItems.getUnstoredItemTargetsYouCanStore(mod, _toStore).length == 0;
     }
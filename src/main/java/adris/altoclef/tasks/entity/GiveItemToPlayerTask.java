@@ -23,6 +23,8 @@ import java.util.Optional;
 
 public class GiveItemToPlayerTask extends Task {
 
+    private static final double THROW_LEAD_TICKS = 5;
+
     private final String _playerName;
     private final ItemTarget[] _targets;
 
@@ -52,7 +54,8 @@ public class GiveItemToPlayerTask extends Task {
             return _throwTask;
         }
 
-        Optional<Vec3d> lastPos = mod.getEntityTracker().getPlayerMostRecentPosition(_playerName);
+        // Aim a little ahead, thrown items take a moment to get there.
+        Optional<Vec3d> lastPos = mod.getEntityTracker().getPlayerPredictedPosition(_playerName, THROW_LEAD_TICKS);
 
         if (lastPos.isEmpty()) {
             setDebugState("No player found/detected. Doing nothing until player loads into render distance.");
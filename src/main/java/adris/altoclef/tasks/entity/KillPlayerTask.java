@@ -1,11 +1,15 @@
 package adris.altoclef.tasks.entity;
 
 import adris.altoclef.AltoClef;
+import adris.altoclef.tasks.movement.GetToBlockTask;
 import adris.altoclef.tasksystem.Task;
+import adris.altoclef.util.helpers.WorldHelper;
 import adris.altoclef.util.progresscheck.IProgressChecker;
 import adris.altoclef.util.progresscheck.LinearProgressChecker;
 import adris.altoclef.util.progresscheck.ProgressCheckerRetry;
 import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
 
 import java.util.Optional;
 
@@ -14,8 +18,15 @@ import java.util.Optional;
  */
 public class KillPlayerTask extends AbstractKillEntityTask {
 
+    // How far the prediction has to move before we give up on where we were headed and go there instead.
+    private static final double RETARGET_DISTANCE = 4;
+
     private final String _playerName;
 
+    // Where we're headed while the player's out of sight. Kept until we get there or they turn, so we don't path
+    // somewhere new every tick.
+    private BlockPos _chaseTarget;
+
     private final IProgressChecker<Double> _distancePlayerCheck = new ProgressCheckerRetry<>(new LinearProgressChecker(5, -2), 3);
 
     public KillPlayerTask(String name) {
@@ -29,7 +40,21 @@ public class KillPlayerTask extends AbstractKillEntityTask {
         Optional<Entity> player = getEntityTarget(mod);
         if (player.isEmpty()) {
             _distancePlayerCheck.reset();
+            // Out of sight, go where they were headed instead of wandering.
+            Optional<Vec3d> predicted = mod.getEntityTracker().getPlayerPredictedPosition(_playerName, 0);
+            if (_chaseTarget != null && WorldHelper.toVec3d(_chaseTarget).isInRange(mod.getPlayer().getPos(), 2)) {
+                // Got there.
+                _chaseTarget = null;
+            }
+            if (predicted.isPresent() && (_chaseTarget == null || !predicted.get().isInRange(WorldHelper.toVec3d(_chaseTarget), RETARGET_DISTANCE))) {
+                _chaseTarget = predicted.get().isInRange(mod.getPlayer().getPos(), 2) ? null : WorldHelper.toBlockPos(predicted.get());
+            }
+            if (_chaseTarget != null) {
+                setDebugState("Chasing where we last saw " + _playerName + " heading");
+                return cachedSubtask("chase", _chaseTarget, pos -> new GetToBlockTask(pos, false));
+            }
         } else {
+            _chaseTarget = null;
             double distSq = player.get().squaredDistanceTo(mod.getPlayer());
             if (distSq < 10 * 10) {
                 _distancePlayerCheck.reset();
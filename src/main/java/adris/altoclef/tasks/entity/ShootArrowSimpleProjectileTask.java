@@ -131,7 +131,7 @@ public class ShootArrowSimpleProjectileTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return shot;
     }
 
@@ -70,11 +70,11 @@ public class ExampleTask2 extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         if (_target != null) {
             return mod.getPlayer().getBlockPos().equals(_target);
         }
-        return super.isFinished(mod);
+        return super.checkFinished(mod);
     }
 
     @Override
@@ -66,7 +66,7 @@ public class LootDesertTempleTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _looted == 4;
     }
 
@@ -479,7 +479,7 @@ public class PlaceBedAndSetSpawnTask extends Task {
      * @return true if the player is finished, false otherwise
      */
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Check if we are in the overworld
         if (WorldHelper.getCurrentDimension() != Dimension.OVERWORLD) {
             return true; // If not in the overworld, the player is considered finished
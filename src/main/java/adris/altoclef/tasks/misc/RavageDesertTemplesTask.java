@@ -86,7 +86,7 @@ public class RavageDesertTemplesTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return false;
     }
 
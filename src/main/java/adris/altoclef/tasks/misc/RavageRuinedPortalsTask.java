@@ -81,7 +81,7 @@ public class RavageRuinedPortalsTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return false;
     }
 
@@ -94,10 +94,8 @@ public class RavageRuinedPortalsTask extends Task {
         if (mod.getWorld().getBlockState(blockPos.up(1)).getBlock() == Blocks.WATER || blockPos.getY() < 50) {
             return false;
         }
-        for (BlockPos check : WorldHelper.scanRegion(mod, blockPos.add(-4, -2, -4), blockPos.add(4, 2, 4))) {
-            if (mod.getWorld().getBlockState(check).getBlock() == Blocks.NETHERRACK) {
-                return true;
-            }
+        if (WorldHelper.regionContains(mod, blockPos.add(-4, -2, -4), blockPos.add(4, 2, 4), Blocks.NETHERRACK)) {
+            return true;
         }
         _notRuinedPortalChests.add(blockPos);
         return false;
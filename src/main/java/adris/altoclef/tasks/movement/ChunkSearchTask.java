@@ -68,7 +68,7 @@ abstract class ChunkSearchTask extends Task {
             }
         }
 
-        _onChunkLoad = EventBus.subscribe(ChunkLoadEvent.class, evt -> {
+        _onChunkLoad = EventBus.subscribe(ChunkLoadEvent.class, ChunkLoadEvent.LANE, evt -> {
             WorldChunk chunk = evt.chunk;
             if (chunk == null) return;
             synchronized (_searchMutex) {
@@ -140,7 +140,7 @@ abstract class ChunkSearchTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _searchLater.size() == 0;
     }
 
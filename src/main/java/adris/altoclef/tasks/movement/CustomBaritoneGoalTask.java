@@ -169,7 +169,7 @@ public abstract class CustomBaritoneGoalTask extends Task implements ITaskRequir
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         if (_cachedGoal == null) {
             _cachedGoal = newGoal(mod);
         }
@@ -88,7 +88,7 @@ public class DefaultGoToDimensionTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return WorldHelper.getCurrentDimension() == _target;
     }
 
@@ -121,7 +121,7 @@ public class EnterNetherPortalTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return WorldHelper.getCurrentDimension() == _targetDimension;
     }
 
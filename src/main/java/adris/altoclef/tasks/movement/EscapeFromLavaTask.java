@@ -67,7 +67,7 @@ public class EscapeFromLavaTask extends CustomBaritoneGoalTask {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return !mod.getPlayer().isInLava() && !mod.getPlayer().isOnFire();
     }
 
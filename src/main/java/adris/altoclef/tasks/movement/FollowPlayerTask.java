@@ -24,7 +24,8 @@ public class FollowPlayerTask extends Task {
     @Override
     protected Task onTick(AltoClef mod) {
 
-        Optional<Vec3d> lastPos = mod.getEntityTracker().getPlayerMostRecentPosition(_playerName);
+        // If they're out of sight, head where they were going rather than where they were.
+        Optional<Vec3d> lastPos = mod.getEntityTracker().getPlayerPredictedPosition(_playerName, 0);
 
         if (lastPos.isEmpty()) {
             setDebugState("No player found/detected. Doing nothing until player loads into render distance.");
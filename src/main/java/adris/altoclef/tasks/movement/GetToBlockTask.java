@@ -68,8 +68,8 @@ public class GetToBlockTask extends CustomBaritoneGoalTask implements ITaskRequi
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
-        return super.isFinished(mod) && (_dimension == null || _dimension == WorldHelper.getCurrentDimension());
+    protected boolean checkFinished(AltoClef mod) {
+        return super.checkFinished(mod) && (_dimension == null || _dimension == WorldHelper.getCurrentDimension());
     }
 
     @Override
@@ -90,7 +90,7 @@ public class GetToOuterEndIslandsTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return WorldHelper.getCurrentDimension() == Dimension.END &&
                 !WorldHelper.inRangeXZ(new Vec3d(0, 64, 0), mod.getPlayer().getPos(), END_ISLAND_START_RADIUS);
     }
@@ -26,7 +26,7 @@ public class IdleTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Never finish
         return false;
     }
@@ -46,7 +46,7 @@ public class LocateDesertTempleTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return mod.getPlayer().getBlockPos().equals(_finalPos);
     }
 }
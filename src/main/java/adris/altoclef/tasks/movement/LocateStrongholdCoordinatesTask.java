@@ -208,7 +208,7 @@ public class LocateStrongholdCoordinatesTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _strongholdEstimatePos != null;
     }
 
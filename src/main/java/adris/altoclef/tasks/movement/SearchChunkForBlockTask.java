@@ -19,10 +19,7 @@ public class SearchChunkForBlockTask extends SearchChunksExploreTask {
 
     @Override
     protected boolean isChunkWithinSearchSpace(AltoClef mod, ChunkPos pos) {
-        return mod.getChunkTracker().scanChunk(pos, block -> {
-                    return _toSearchFor.contains(mod.getWorld().getBlockState(block).getBlock());
-                }
-        );
+        return mod.getChunkTracker().chunkContains(pos, _toSearchFor);
     }
 
     @Override
@@ -8,6 +8,7 @@ import adris.altoclef.eventbus.events.ChunkLoadEvent;
 import adris.altoclef.tasksystem.Task;
 import net.minecraft.util.math.ChunkPos;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -23,8 +24,9 @@ public abstract class SearchChunksExploreTask extends Task {
 
     private final Object _searcherMutex = new Object();
     private final Set<ChunkPos> _alreadyExplored = new HashSet<>();
+    // Loaded since our last tick, checked on the client thread.
+    private final ArrayList<ChunkPos> _justLoaded = new ArrayList<>();
     private ChunkSearchTask _searcher;
-    private AltoClef _mod;
     private Subscription<ChunkLoadEvent> _chunkLoadedSubscription;
 
     // Virtual
@@ -34,10 +36,13 @@ public abstract class SearchChunksExploreTask extends Task {
 
     @Override
     protected void onStart(AltoClef mod) {
-        _mod = mod;
-
-        // Listen for chunk loading
-        _chunkLoadedSubscription = EventBus.subscribe(ChunkLoadEvent.class, evt -> onChunkLoad(evt.chunk.getPos()));
+        // Listen for chunk loading. Off thread, so only write down where, `onTick` looks at the chunk.
+        _chunkLoadedSubscription = EventBus.subscribe(ChunkLoadEvent.class, ChunkLoadEvent.LANE, evt -> {
+            if (evt.chunk == null) return;
+            synchronized (_searcherMutex) {
+                _justLoaded.add(evt.chunk.getPos());
+            }
+        });
 
         resetSearch(mod);
     }
@@ -45,6 +50,11 @@ public abstract class SearchChunksExploreTask extends Task {
     @Override
     protected Task onTick(AltoClef mod) {
         synchronized (_searcherMutex) {
+            for (ChunkPos justLoaded : _justLoaded) {
+                onChunkLoad(mod, justLoaded);
+            }
+            _justLoaded.clear();
+
             if (_searcher == null) {
                 setDebugState("Exploring/Searching for valid chunk");
                 // Explore
@@ -72,11 +82,11 @@ public abstract class SearchChunksExploreTask extends Task {
         EventBus.unsubscribe(_chunkLoadedSubscription);
     }
 
-    // When we find a valid chunk, start our search there.
-    private void onChunkLoad(ChunkPos pos) {
+    // When we find a valid chunk, start our search there. Client thread only, the search space check reads the world.
+    private void onChunkLoad(AltoClef mod, ChunkPos pos) {
         if (_searcher != null) return;
         if (!this.isActive()) return;
-        if (isChunkWithinSearchSpace(_mod, pos)) {
+        if (isChunkWithinSearchSpace(mod, pos)) {
             synchronized (_searcherMutex) {
                 if (!_alreadyExplored.contains(pos)) {
                     Debug.logMessage("New searcher: " + pos);
@@ -98,11 +108,14 @@ public abstract class SearchChunksExploreTask extends Task {
 
     public void resetSearch(AltoClef mod) {
         //Debug.logMessage("Search reset");
-        _searcher = null;
-        _alreadyExplored.clear();
+        synchronized (_searcherMutex) {
+            _searcher = null;
+            _alreadyExplored.clear();
+            _justLoaded.clear();
+        }
         // We want to search the currently loaded chunks too!!!
         for (ChunkPos start : mod.getChunkTracker().getLoadedChunks()) {
-            onChunkLoad(start);
+            onChunkLoad(mod, start);
         }
     }
 
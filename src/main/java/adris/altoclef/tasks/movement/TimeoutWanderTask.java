@@ -16,7 +16,7 @@ import baritone.api.utils.input.Input;
 import net.minecraft.block.*;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.entity.mob.Monster;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.slot.SlotActionType;
 import net.minecraft.util.math.BlockPos;
@@ -184,7 +184,8 @@ public class TimeoutWanderTask extends Task implements ITaskRequiresGrounded {
             return _unstuckTask;
         }
         if (!_progressChecker.check(mod) || !stuckCheck.check(mod)) {
-            Optional<Entity> mob = mod.getEntityTracker().getClosestEntity(MobEntity.class);
+            // Monsters only, we don't want to kill villagers, golems or someone's pets for standing in the way.
+            Optional<Entity> mob = mod.getEntityTracker().getClosestEntity(Monster.class);
             if (mob.isPresent() && mob.get().getPos().isInRange(mod.getPlayer().getPos(), 1)) {
                 setDebugState("Killing annoying entity.");
                 Predicate<Entity> valid = entity -> entity == mob.get();
@@ -250,7 +251,7 @@ public class TimeoutWanderTask extends Task implements ITaskRequiresGrounded {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Why the heck did I add this in?
         //if (_origin == null) return true;
 
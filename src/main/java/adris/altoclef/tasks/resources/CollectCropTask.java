@@ -144,12 +144,12 @@ public class CollectCropTask extends ResourceTask {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Don't stop while we're replanting crops.
         if (shouldReplantNow(mod)) {
             return false;
         }
-        return super.isFinished(mod);
+        return super.checkFinished(mod);
     }
 
     private boolean shouldReplantNow(AltoClef mod) {
@@ -319,7 +319,7 @@ public class CollectFoodTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return StorageHelper.calculateInventoryFoodScore(mod) >= _unitsNeeded;
     }
 
@@ -59,7 +59,7 @@ public class CollectFuelTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return mod.getItemStorage().getItemCountInventoryOnly(Items.COAL) >= _targetFuel;
     }
 
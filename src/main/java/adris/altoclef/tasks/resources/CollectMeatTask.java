@@ -214,7 +214,7 @@ public class CollectMeatTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return StorageHelper.calculateInventoryFoodScore(mod) >= _unitsNeeded && _smeltTask == null;
     }
 
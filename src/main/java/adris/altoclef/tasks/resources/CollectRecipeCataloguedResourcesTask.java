@@ -123,7 +123,7 @@ public class CollectRecipeCataloguedResourcesTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         if (_finished) {
             if (!StorageHelper.hasRecipeMaterialsOrTarget(mod, this._targets)) {
                 _finished = false;
@@ -39,7 +39,7 @@ public class GetBuildingMaterialsTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return StorageHelper.getBuildingMaterialCount(mod) >= _count;
     }
 
@@ -60,7 +60,7 @@ public class SatisfyMiningRequirementTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return StorageHelper.miningRequirementMetInventory(mod, _requirement);
     }
 }
@@ -65,7 +65,7 @@ public class ClickSlotTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _clicked;
     }
 }
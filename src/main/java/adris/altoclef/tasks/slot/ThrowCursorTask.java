@@ -33,7 +33,7 @@ public class ThrowCursorTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _throwTask.isFinished(mod);
     }
 }
@@ -572,10 +572,8 @@ public class BeatMinecraft2Task extends Task {
         if (mod.getWorld().getBlockState(blockPos.up(1)).getBlock() == Blocks.WATER || blockPos.getY() < 50) {
             return false;
         }
-        for (BlockPos check : WorldHelper.scanRegion(mod, blockPos.add(-4, -2, -4), blockPos.add(4, 2, 4))) {
-            if (mod.getWorld().getBlockState(check).getBlock() == Blocks.NETHERRACK) {
-                return true;
-            }
+        if (WorldHelper.regionContains(mod, blockPos.add(-4, -2, -4), blockPos.add(4, 2, 4), Blocks.NETHERRACK)) {
+            return true;
         }
         _notRuinedPortalChests.add(blockPos);
         return false;
@@ -802,7 +800,7 @@ public class BeatMinecraft2Task extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return MinecraftClient.getInstance().currentScreen instanceof CreditsScreen;
     }
 }
\ No newline at end of file
@@ -190,8 +190,8 @@ public class KillEnderDragonWithBedsTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
-        return super.isFinished(mod);
+    protected boolean checkFinished(AltoClef mod) {
+        return super.checkFinished(mod);
     }
 
     @Override
@@ -325,7 +325,7 @@ public class MarvionBeatMinecraftTask extends Task {
      * @return true if the game is finished, false otherwise
      */
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         // Check if the current screen is the CreditsScreen
         if (getInstance().currentScreen instanceof CreditsScreen) {
             return true;
@@ -1589,7 +1589,7 @@ public class MarvionBeatMinecraftTask extends Task {
             return _setBedSpawnTask;
         } else {
             setDebugState("Approaching portal (to set spawnpoint)");
-            return new GetToXZTask(_endPortalCenterLocation.getX(), _endPortalCenterLocation.getZ());
+            return cachedSubtask("approach end portal", _endPortalCenterLocation, pos -> new GetToXZTask(pos.getX(), pos.getZ()));
         }
     }
 
@@ -1605,13 +1605,13 @@ public class MarvionBeatMinecraftTask extends Task {
 
         // Check if blaze rods are dropped, if so, pick them up
         if (entityTracker.itemDropped(Items.BLAZE_ROD)) {
-            return new PickupDroppedItemTask(Items.BLAZE_ROD, 1);
+            return cachedSubtask("pick up blaze rods", () -> new PickupDroppedItemTask(Items.BLAZE_ROD, 1));
         } else if (entityTracker.itemDropped(Items.BLAZE_POWDER)) {
             // Check if blaze powder is dropped, if so, pick it up
-            return new PickupDroppedItemTask(Items.BLAZE_POWDER, 1);
+            return cachedSubtask("pick up blaze powder", () -> new PickupDroppedItemTask(Items.BLAZE_POWDER, 1));
         } else {
             // If no blaze rods or powder is dropped, collect blaze rods
-            return new CollectBlazeRodsTask(count);
+            return cachedSubtask("collect blaze rods", count, CollectBlazeRodsTask::new);
         }
     }
 
@@ -1631,17 +1631,17 @@ public class MarvionBeatMinecraftTask extends Task {
 
         // Check if Ender Pearls have been dropped as items.
         if (mod.getEntityTracker().itemDropped(Items.ENDER_PEARL)) {
-            return new PickupDroppedItemTask(Items.ENDER_PEARL, 1);
+            return cachedSubtask("pick up ender pearls", () -> new PickupDroppedItemTask(Items.ENDER_PEARL, 1));
         }
 
         // Check if we should barter Pearls instead of hunting Endermen.
         if (_config.barterPearlsInsteadOfEndermanHunt) {
             // Check if Golden Helmet is not equipped, and equip it.
             if (!StorageHelper.isArmorEquipped(mod, Items.GOLDEN_HELMET)) {
-                return new EquipArmorTask(Items.GOLDEN_HELMET);
+                return cachedSubtask("equip golden helmet", () -> new EquipArmorTask(Items.GOLDEN_HELMET));
             }
             // Trade with Piglins for Ender Pearls.
-            return new TradeWithPiglinsTask(32, Items.ENDER_PEARL, count);
+            return cachedSubtask("barter ender pearls", count, pearls -> new TradeWithPiglinsTask(32, Items.ENDER_PEARL, pearls));
         }
 
         boolean endermanFound = mod.getEntityTracker().entityFound(EndermanEntity.class);
@@ -1652,7 +1652,7 @@ public class MarvionBeatMinecraftTask extends Task {
         if ((endermanFound || pearlDropped) && hasTwistingVines) {
             Optional<Entity> toKill = mod.getEntityTracker().getClosestEntity(EndermanEntity.class);
             if (toKill.isPresent()) {
-                return new KillEndermanTask(count);
+                return cachedSubtask("kill endermen", count, KillEndermanTask::new);
             }
         }
 
@@ -1670,11 +1670,11 @@ public class MarvionBeatMinecraftTask extends Task {
                 getTwistingVines = TaskCatalogue.getItemTask(Items.TWISTING_VINES, TWISTING_VINES_COUNT);
                 return getTwistingVines;
             }
-            return new SearchChunkForBlockTask(Blocks.TWISTING_VINES, Blocks.TWISTING_VINES_PLANT, Blocks.WARPED_HYPHAE, Blocks.WARPED_NYLIUM);
+            return cachedSubtask("search for twisting vines", () -> new SearchChunkForBlockTask(Blocks.TWISTING_VINES, Blocks.TWISTING_VINES_PLANT, Blocks.WARPED_HYPHAE, Blocks.WARPED_NYLIUM));
         }
 
         // Search for Ender Pearls within the warped forest biome.
-        return new SearchWithinBiomeTask(BiomeKeys.WARPED_FOREST);
+        return cachedSubtask("search for warped forest", () -> new SearchWithinBiomeTask(BiomeKeys.WARPED_FOREST));
     }
 
     /**
@@ -1867,12 +1867,9 @@ public class MarvionBeatMinecraftTask extends Task {
         BlockPos maxPos = blockPos.add(4, 2, 4);
 
         try {
-            // Scan the region around the chest
-            for (BlockPos checkPos : WorldHelper.scanRegion(mod, minPos, maxPos)) {
-                // Check if the chest is on netherrack
-                if (mod.getWorld().getBlockState(checkPos).getBlock() == Blocks.NETHERRACK) {
-                    return true;
-                }
+            // Scan the region around the chest, check if the chest is on netherrack
+            if (WorldHelper.regionContains(mod, minPos, maxPos, Blocks.NETHERRACK)) {
+                return true;
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -57,7 +57,7 @@ public class CataloguedResourceTask extends ResourceTask {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         for (ResourceTask task : _tasksToComplete) {
             for (ItemTarget target : task.getItemTargets()) {
                 if (!StorageHelper.itemTargetsMetInventory(mod, target)) return false;
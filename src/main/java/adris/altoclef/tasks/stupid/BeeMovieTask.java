@@ -194,7 +194,7 @@ public class BeeMovieTask extends Task {
     }
 
     @Override
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return _finished;
     }
 
@@ -4,10 +4,18 @@ import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
 import adris.altoclef.tasks.movement.TimeoutWanderTask;
 
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public abstract class Task {
 
+    // Across every task, for seeing how much `cachedSubtask` saves. Client thread only.
+    private static long _subtaskCacheHits;
+    private static long _subtaskCacheMisses;
+
     private String _oldDebugState = "";
     private String _debugState = "";
 
@@ -19,18 +27,35 @@ public abstract class Task {
 
     private boolean _active = false;
 
+    // Subtasks handed out by `cachedSubtask`, by slot. Made on first use, most tasks never need it.
+    private HashMap<Object, CachedSubtask> _subtaskCache;
+
     public void tick(AltoClef mod, TaskChain parentChain) {
+        TickProfiler profiler = mod.getTaskRunner().getProfiler();
+        profiler.pushFrameOf(this);
+        try {
+            tickInner(mod, parentChain, profiler);
+        } finally {
+            profiler.pop();
+        }
+    }
+
+    private void tickInner(AltoClef mod, TaskChain parentChain, TickProfiler profiler) {
         parentChain.addTaskToChain(this);
         if (_first) {
             Debug.logInternal("Task START: " + this);
             _active = true;
+            profiler.push("onStart");
             onStart(mod);
+            profiler.pop();
             _first = false;
             _stopped = false;
         }
         if (_stopped) return;
 
+        profiler.push("onTick");
         Task newSub = onTick(mod);
+        profiler.pop();
         // Debug state print
         if (!_oldDebugState.equals(_debugState)) {
             Debug.logInternal(toString());
@@ -38,7 +63,8 @@ public abstract class Task {
         }
         // We have a sub task
         if (newSub != null) {
-            if (!newSub.isEqual(_sub)) {
+            // Same instance (see `cachedSubtask`) needs no deep comparison.
+            if (newSub != _sub && !newSub.isEqual(_sub)) {
                 if (canBeInterrupted(mod, _sub, newSub)) {
                     // Our sub task is new
                     if (_sub != null) {
@@ -79,7 +105,7 @@ public abstract class Task {
         if (!_active) return;
         Debug.logInternal("Task STOP: " + this + ", interrupted by " + interruptTask);
         if (!_first) {
-            onStop(mod, interruptTask);
+            timedOnStop(mod, interruptTask);
         }
 
         if (_sub != null && !_sub.stopped()) {
@@ -101,7 +127,7 @@ public abstract class Task {
     public void interrupt(AltoClef mod, Task interruptTask) {
         if (!_active) return;
         if (!_first) {
-            onStop(mod, interruptTask);
+            timedOnStop(mod, interruptTask);
         }
 
         if (_sub != null && !_sub.stopped()) {
@@ -111,6 +137,70 @@ public abstract class Task {
         _first = true;
     }
 
+    /**
+     * For `onTick`: hands back the subtask this slot last built, as long as it was built from an equal `key` and
+     * hasn't been stopped since, and only builds a new one otherwise. Saves building a new subtask (and deep comparing
+     * it with the running one) every tick.
+     * <p>
+     * Use a different slot for every kind of subtask a task returns, like
+     * {@code return cachedSubtask("kill", count, KillEndermanTask::new);}
+     *
+     * @param slot   Identifies the call site. Must always be used for the same type of task.
+     * @param key    Whatever the subtask is built from, compared with {@link Objects#equals}.
+     * @param create Builds the subtask from `key`. A method reference or lambda that captures nothing costs nothing.
+     */
+    @SuppressWarnings("unchecked")
+    protected <K, T extends Task> T cachedSubtask(Object slot, K key, Function<K, T> create) {
+        CachedSubtask cached = getCachedSubtask(slot);
+        if (cached.task != null && !cached.task.stopped() && Objects.equals(cached.key, key)) {
+            _subtaskCacheHits++;
+            return (T) cached.task;
+        }
+        _subtaskCacheMisses++;
+        T task = create.apply(key);
+        cached.key = key;
+        cached.task = task;
+        return task;
+    }
+
+    /**
+     * {@link #cachedSubtask(Object, Object, Function)} for a subtask that isn't built from anything.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends Task> T cachedSubtask(Object slot, Supplier<T> create) {
+        CachedSubtask cached = getCachedSubtask(slot);
+        if (cached.task != null && !cached.task.stopped()) {
+            _subtaskCacheHits++;
+            return (T) cached.task;
+        }
+        _subtaskCacheMisses++;
+        T task = create.get();
+        cached.key = null;
+        cached.task = task;
+        return task;
+    }
+
+    /**
+     * How often {@link #cachedSubtask} handed back a subtask it already had, instead of building one.
+     */
+    public static String getSubtaskCacheStats() {
+        long total = _subtaskCacheHits + _subtaskCacheMisses;
+        return String.format("Subtask cache: %d reused, %d built (%.1f%% reused)",
+                _subtaskCacheHits, _subtaskCacheMisses, total == 0 ? 0 : 100.0 * _subtaskCacheHits / total);
+    }
+
+    private CachedSubtask getCachedSubtask(Object slot) {
+        if (_subtaskCache == null) {
+            _subtaskCache = new HashMap<>();
+        }
+        CachedSubtask cached = _subtaskCache.get(slot);
+        if (cached == null) {
+            cached = new CachedSubtask();
+            _subtaskCache.put(slot, cached);
+        }
+        return cached;
+    }
+
     protected void setDebugState(String state) {
         if (state == null) {
             state = "";
@@ -118,8 +208,24 @@ public abstract class Task {
         _debugState = state;
     }
 
+    /**
+     * Whether this task is done. Timed under this task's own frame wherever it's asked, so a parent checking its
+     * subtask shows up under the subtask. Override {@link #checkFinished} for the actual check.
+     */
+    public final boolean isFinished(AltoClef mod) {
+        TickProfiler profiler = mod.getTaskRunner().getProfiler();
+        profiler.pushFrameOf(this);
+        profiler.push("isFinished");
+        try {
+            return checkFinished(mod);
+        } finally {
+            profiler.pop();
+            profiler.pop();
+        }
+    }
+
     // Virtual
-    public boolean isFinished(AltoClef mod) {
+    protected boolean checkFinished(AltoClef mod) {
         return false;
     }
 
@@ -168,6 +274,20 @@ public abstract class Task {
         return thisOrChildSatisfies(task -> task instanceof TimeoutWanderTask);
     }
 
+    private void timedOnStop(AltoClef mod, Task interruptTask) {
+        TickProfiler profiler = mod.getTaskRunner().getProfiler();
+        profiler.pushFrameOf(this);
+        profiler.push("onStop");
+        onStop(mod, interruptTask);
+        profiler.pop();
+        profiler.pop();
+    }
+
+    private static class CachedSubtask {
+        public Object key;
+        public Task task;
+    }
+
     /**
      * Sometimes a task just can NOT be bothered to be interrupted right now.
      * For instance, if we're in mid air and MUST complete the parkour movement.
@@ -13,19 +13,26 @@ public class TaskRunner {
 
     private TaskChain _cachedCurrentTaskChain = null;
 
+    private final TickProfiler _profiler = new TickProfiler();
+
     public TaskRunner(AltoClef mod) {
         _mod = mod;
         _active = false;
     }
 
     public void tick() {
+        _profiler.onTickStart();
         if (!_active || !AltoClef.inGame()) return;
         // Get highest priority chain and run
         TaskChain maxChain = null;
         float maxPriority = Float.NEGATIVE_INFINITY;
         for (TaskChain chain : _chains) {
             if (!chain.isActive()) continue;
+            _profiler.push(chain.getName());
+            _profiler.push("getPriority");
             float priority = chain.getPriority(_mod);
+            _profiler.pop();
+            _profiler.pop();
             if (priority > maxPriority) {
                 maxPriority = priority;
                 maxChain = chain;
@@ -36,7 +43,9 @@ public class TaskRunner {
         }
         _cachedCurrentTaskChain = maxChain;
         if (maxChain != null) {
+            _profiler.push(maxChain.getName());
             maxChain.tick(_mod);
+            _profiler.pop();
         }
     }
 
@@ -68,6 +77,10 @@ public class TaskRunner {
         return _cachedCurrentTaskChain;
     }
 
+    public TickProfiler getProfiler() {
+        return _profiler;
+    }
+
     // Kinda jank ngl
     public AltoClef getMod() {
         return _mod;
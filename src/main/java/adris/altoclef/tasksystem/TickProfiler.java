@@ -0,0 +1,223 @@
+package adris.altoclef.tasksystem;
+
+import adris.altoclef.Debug;
+import adris.altoclef.util.helpers.ConfigHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where tick time goes in the task system, by path through the chains and task tree.
+ * <p>
+ * Chains and tasks call {@link #push} and {@link #pop} around whatever they want timed. Each frame's own time (not
+ * counting frames pushed inside it) is added up under its full path, like "User Tasks;GetToBlockTask;onTick".
+ * Only the last {@link #WINDOW_SECONDS} seconds are kept, and {@link #export} writes them out as collapsed stacks
+ * (one "path count" per line, in microseconds), which flamegraph tools read as is.
+ * <p>
+ * Where the JVM can tell us, bytes allocated are added up the same way and exported alongside, so allocation churn
+ * in a task tree can be compared before and after a change. Our own bookkeeping counts towards the parent frame,
+ * so treat small numbers as noise.
+ * <p>
+ * Starting and stopping only take effect between ticks, so a tick is never half captured. When not capturing, push
+ * and pop do nothing.
+ */
+public class TickProfiler {
+
+    private static final int TICKS_PER_BUCKET = 20;
+    private static final int WINDOW_SECONDS = 30;
+
+    // Null if this JVM can't count allocations per thread.
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = getAllocationBean();
+
+    // Older buckets first, the last one is being filled. Each path maps to {own nanos, own bytes allocated}.
+    private final ArrayDeque<Map<String, long[]>> _buckets = new ArrayDeque<>();
+    private int _ticksInBucket;
+
+    private final ArrayList<Frame> _stack = new ArrayList<>();
+
+    private boolean _capturing;
+    private boolean _wantCapturing;
+
+    public boolean isCapturing() {
+        return _capturing;
+    }
+
+    public void start() {
+        _wantCapturing = true;
+    }
+
+    public void stop() {
+        _wantCapturing = false;
+    }
+
+    public void push(String name) {
+        if (!_capturing) return;
+        String sanitized = name.replace(';', '_').replace(' ', '_');
+        String path = _stack.isEmpty() ? sanitized : _stack.get(_stack.size() - 1).path + ";" + sanitized;
+        _stack.add(new Frame(path, System.nanoTime(), allocatedBytes()));
+    }
+
+    /**
+     * Pushes a frame named after `owner`'s class. Cheaper than working the name out yourself when we're not capturing.
+     */
+    public void pushFrameOf(Object owner) {
+        if (!_capturing) return;
+        push(getFrameName(owner));
+    }
+
+    public void pop() {
+        if (!_capturing || _stack.isEmpty()) return;
+        Frame frame = _stack.remove(_stack.size() - 1);
+        long total = System.nanoTime() - frame.start;
+        long totalBytes = allocatedBytes() - frame.startBytes;
+        long[] own = _buckets.getLast().computeIfAbsent(frame.path, key -> new long[2]);
+        own[0] += total - frame.childNanos;
+        own[1] += totalBytes - frame.childBytes;
+        if (!_stack.isEmpty()) {
+            Frame parent = _stack.get(_stack.size() - 1);
+            parent.childNanos += total;
+            parent.childBytes += totalBytes;
+        }
+    }
+
+    /**
+     * Call once at the start of every tick, before anything's pushed.
+     */
+    public void onTickStart() {
+        // Anything left open last tick threw, don't let it leak into this one.
+        _stack.clear();
+        if (_wantCapturing && !_capturing) {
+            _buckets.clear();
+            _buckets.add(new HashMap<>());
+            _ticksInBucket = 0;
+        }
+        _capturing = _wantCapturing;
+        if (!_capturing) return;
+        if (++_ticksInBucket >= TICKS_PER_BUCKET) {
+            _ticksInBucket = 0;
+            _buckets.add(new HashMap<>());
+            while (_buckets.size() > WINDOW_SECONDS * 20 / TICKS_PER_BUCKET) {
+                _buckets.removeFirst();
+            }
+        }
+    }
+
+    public boolean isCountingAllocations() {
+        return ALLOCATIONS != null;
+    }
+
+    /**
+     * @return Own time per path over the window, in nanoseconds.
+     */
+    public Map<String, Long> getTotals() {
+        return getTotals(0);
+    }
+
+    /**
+     * @return Own bytes allocated per path over the window. Empty if we can't count allocations.
+     */
+    public Map<String, Long> getAllocationTotals() {
+        return ALLOCATIONS == null ? new HashMap<>() : getTotals(1);
+    }
+
+    /**
+     * @return The paths we spent the most of our own time in, slowest first.
+     */
+    public List<String> getTopPaths(int count) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(getTotals().entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> allocations = getAllocationTotals();
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, entries.size()); ++i) {
+            String path = entries.get(i).getKey();
+            if (isCountingAllocations()) {
+                result.add(String.format("%.2fms %.1fKB %s", entries.get(i).getValue() / 1e6, allocations.getOrDefault(path, 0L) / 1024.0, path));
+            } else {
+                result.add(String.format("%.2fms %s", entries.get(i).getValue() / 1e6, path));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the window out as collapsed stacks in the altoclef folder, time in microseconds. Allocations (in bytes)
+     * go next to it in a "tick_alloc_" file, if we're counting them.
+     *
+     * @return The time file written, null if it couldn't be.
+     */
+    public File export() {
+        String time = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+        File file = ConfigHelper.getDataFile("tick_profile_" + time + ".collapsed");
+        if (!writeCollapsed(file, getTotals(), 1000)) return null;
+        if (isCountingAllocations()) {
+            writeCollapsed(ConfigHelper.getDataFile("tick_alloc_" + time + ".collapsed"), getAllocationTotals(), 1);
+        }
+        return file;
+    }
+
+    private Map<String, Long> getTotals(int index) {
+        HashMap<String, Long> result = new HashMap<>();
+        for (Map<String, long[]> bucket : _buckets) {
+            bucket.forEach((path, own) -> result.merge(path, own[index], Long::sum));
+        }
+        return result;
+    }
+
+    private static boolean writeCollapsed(File file, Map<String, Long> totals, long divisor) {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (Map.Entry<String, Long> entry : totals.entrySet()) {
+                long count = entry.getValue() / divisor;
+                if (count <= 0) continue;
+                writer.println(entry.getKey() + " " + count);
+            }
+        } catch (IOException e) {
+            Debug.logWarning("Failed to export tick profile to " + file + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS == null ? 0 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * @return What to call something's frame, its class name without the package.
+     */
+    public static String getFrameName(Object object) {
+        String name = object.getClass().getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static class Frame {
+        public final String path;
+        public final long start;
+        public final long startBytes;
+        public long childNanos;
+        public long childBytes;
+
+        public Frame(String path, long start, long startBytes) {
+            this.path = path;
+            this.start = start;
+            this.startBytes = startBytes;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package adris.altoclef.trackers;
+
+import net.minecraft.block.Block;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Decides how much scanning {@link BlockTracker} does each tick, and which block types get looked for again.
+ * <p>
+ * Every block type keeps a "heat": how often and how recently tasks have asked about it, decaying over time.
+ * Types we had to throw blocks away for are refreshed once we've moved far enough, once they run low, or on their
+ * own interval: the hottest type every `minRefreshSeconds` and the coldest every `maxRefreshSeconds`
+ * (as long as we've moved a little, rescanning from the same spot finds the same blocks).
+ * Types nobody has asked about for `maxRefreshSeconds` aren't refreshed until someone asks again.
+ * <p>
+ * How many chunks get scanned per tick comes from a time budget and how long chunk scans have been taking,
+ * so a tick never spends much more than the budget on scanning no matter how many types we track.
+ */
+class BlockScanScheduler {
+
+    // Heat halves every this many seconds without queries.
+    private static final double HEAT_HALF_LIFE_SECONDS = 10;
+    // How much a new chunk scan timing counts towards the average.
+    private static final double SCAN_COST_SMOOTHING = 0.2;
+    // An interval refresh still needs us to have moved this much of the refill distance.
+    private static final double INTERVAL_MOVE_FRACTION = 0.25;
+
+    private final HashMap<Block, TypeStats> _stats = new HashMap<>();
+    // Average time a chunk scan takes, -1 until we've timed one.
+    private double _averageChunkScanNanos = -1;
+
+    public void onQueried(Block... blocks) {
+        long now = System.nanoTime();
+        for (Block block : blocks) {
+            TypeStats stats = _stats.computeIfAbsent(block, b -> new TypeStats(now));
+            stats.heat = stats.heatAt(now) + 1;
+            stats.lastQueried = now;
+        }
+    }
+
+    public void onStoppedTracking(Block block) {
+        _stats.remove(block);
+    }
+
+    /**
+     * @param candidates        Types that could use a refresh (we've had to throw some of their blocks away)
+     * @param playerPos         Where we are now
+     * @param refillDistance    Moving this far since a type's last refresh always refreshes it
+     * @param runningLow        Whether a type has used up enough of what it had that it needs a refresh now
+     * @param minRefreshSeconds Refresh interval for the hottest type
+     * @param maxRefreshSeconds Refresh interval for the coldest type
+     * @return The types to refresh now, hottest first.
+     */
+    public List<Block> getDueForRefresh(Collection<Block> candidates, Vec3d playerPos, double refillDistance, Predicate<Block> runningLow, double minRefreshSeconds, double maxRefreshSeconds) {
+        long now = System.nanoTime();
+        long idleNanos = (long) (maxRefreshSeconds * 1e9);
+        List<Block> ranked = new ArrayList<>();
+        for (Block block : candidates) {
+            TypeStats stats = _stats.get(block);
+            // Nobody's asked in a while, don't bother.
+            if (stats == null || now - stats.lastQueried > idleNanos) continue;
+            ranked.add(block);
+        }
+        ranked.sort(Comparator.comparingDouble((Block block) -> _stats.get(block).heatAt(now)).reversed());
+
+        List<Block> due = new ArrayList<>();
+        for (int rank = 0; rank < ranked.size(); ++rank) {
+            Block block = ranked.get(rank);
+            TypeStats stats = _stats.get(block);
+            double t = ranked.size() == 1 ? 0 : (double) rank / (ranked.size() - 1);
+            long interval = (long) ((minRefreshSeconds + (maxRefreshSeconds - minRefreshSeconds) * t) * 1e9);
+            double moved = stats.lastRefreshPosition == null ? Double.POSITIVE_INFINITY : playerPos.distanceTo(stats.lastRefreshPosition);
+            boolean intervalUp = now - stats.lastRefreshed >= interval && moved >= refillDistance * INTERVAL_MOVE_FRACTION;
+            if (moved >= refillDistance || runningLow.test(block) || intervalUp) {
+                stats.lastRefreshed = now;
+                stats.lastRefreshPosition = playerPos;
+                due.add(block);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * @return How many chunks we can scan this tick and stay within `budgetMicros`. Always at least one.
+     */
+    public int getChunkBudget(double budgetMicros, int maxChunks) {
+        if (_averageChunkScanNanos <= 0) return maxChunks;
+        int chunks = (int) (budgetMicros * 1000 / _averageChunkScanNanos);
+        return Math.max(1, Math.min(chunks, maxChunks));
+    }
+
+    public void recordScan(int chunks, long nanos) {
+        if (chunks == 0) return;
+        double perChunk = (double) nanos / chunks;
+        if (_averageChunkScanNanos < 0) {
+            _averageChunkScanNanos = perChunk;
+        } else {
+            _averageChunkScanNanos += (perChunk - _averageChunkScanNanos) * SCAN_COST_SMOOTHING;
+        }
+    }
+
+    public void reset() {
+        _stats.clear();
+    }
+
+    private static class TypeStats {
+        public double heat;
+        public long lastQueried;
+        public long lastRefreshed;
+        public Vec3d lastRefreshPosition;
+
+        public TypeStats(long now) {
+            lastQueried = now;
+            lastRefreshed = now;
+        }
+
+        public double heatAt(long now) {
+            double seconds = (now - lastQueried) / 1e9;
+            return heat * Math.pow(0.5, seconds / HEAT_HALF_LIFE_SECONDS);
+        }
+    }
+}
@@ -3,29 +3,39 @@ package adris.altoclef.trackers;
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
 import adris.altoclef.eventbus.EventBus;
-import adris.altoclef.eventbus.events.BlockPlaceEvent;
+import adris.altoclef.eventbus.events.BlockStateChangedEvent;
+import adris.altoclef.eventbus.events.ChunkLoadEvent;
+import adris.altoclef.eventbus.events.ChunkUnloadEvent;
 import adris.altoclef.trackers.blacklisting.WorldLocateBlacklist;
+import adris.altoclef.trackers.spatial.BlockCacheEvictionPolicy;
+import adris.altoclef.trackers.spatial.ChunkSectionScanner;
+import adris.altoclef.trackers.spatial.DistanceMetric;
+import adris.altoclef.trackers.spatial.DistanceRecencyEvictionPolicy;
+import adris.altoclef.trackers.spatial.SectionBucketIndex;
+import adris.altoclef.trackers.spatial.ShellSearch;
+import adris.altoclef.trackers.storage.BlockKnowledgeStore;
 import adris.altoclef.util.Dimension;
-import adris.altoclef.util.helpers.BaritoneHelper;
+import adris.altoclef.util.collections.Long2IntHashMap;
+import adris.altoclef.util.collections.Long2ObjectHashMap;
+import adris.altoclef.util.collections.LongHashSet;
 import adris.altoclef.util.helpers.ConfigHelper;
-import adris.altoclef.util.helpers.StlHelper;
 import adris.altoclef.util.helpers.WorldHelper;
-import adris.altoclef.util.time.TimerGame;
 import baritone.Baritone;
-import baritone.api.utils.BlockOptionalMetaLookup;
-import baritone.pathing.movement.CalculationContext;
-import baritone.process.MineProcess;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.WorldChunk;
 
+import java.io.File;
 import java.util.*;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Tracks blocks the way we want it, when we want it.
@@ -37,66 +47,74 @@ import java.util.stream.Collectors;
  */
 public class BlockTracker extends Tracker {
 
-    // This should be moved to an instance variable
-    // but if set to true, block scanning will happen
-    // asynchronously to spread out the expensive cost of scanning.
-    private static final boolean ASYNC_SCANNING = true;
     private static BlockTrackerConfig _config = new BlockTrackerConfig();
 
     static {
         ConfigHelper.loadConfig("configs/block_tracker.json", BlockTrackerConfig::new, BlockTrackerConfig.class, newConfig -> _config = newConfig);
     }
 
-    private final HashMap<Dimension, PosCache> _caches = new HashMap<>();
+    // Every dimension gets its cache up front, so looking one up never modifies the map.
+    private final EnumMap<Dimension, PosCache> _caches = new EnumMap<>(Dimension.class);
 
-    //private final PosCache _cache = new PosCache(100, 64*1.5);
+    // Threading: the caches, `_trackingBlocks` and the scan queue are only ever touched from the client thread.
+    // Anything other threads need (what we track, what's unreachable) is published as an immutable snapshot,
+    // and scans done on a worker hand their results back through a single atomic swap. Nobody ever waits on a lock.
 
-    private final TimerGame _timer = new TimerGame(_config.scanInterval);
+    private final Map<Block, Integer> _trackingBlocks = new HashMap<>();
+    private volatile Set<Block> _trackingSnapshot = Set.of();
 
-    private final TimerGame _forceElapseTimer = new TimerGame(_config.scanIntervalWhenNewBlocksFound);
+    // Chunks we still have to look through, and which blocks to look for (null for everything we're tracking).
+    // Only touched from the client thread.
+    private final LinkedHashMap<ChunkPos, Set<Block>> _pendingChunkScans = new LinkedHashMap<>();
 
-    // A scan can last no more than 15 seconds
-    private final TimerGame _asyncForceResetScanFlag = new TimerGame(15);
+    // Block types that were cut down to `maxCacheSizePerBlockType`, so there are more out there than we know of.
+    private final Set<Block> _saturatedBlocks = new HashSet<>();
+    private final BlockScanScheduler _scheduler = new BlockScanScheduler();
 
-    private final Map<Block, Integer> _trackingBlocks = new HashMap<>();
+    // How many of the nearest blocks we remember per query. Filters usually only skip a few.
+    private static final int NEAREST_MEMO_DEPTH = 8;
+    // Nearest block rankings we've worked out this tick. Cleared every tick and whenever a block changes.
+    private final HashMap<NearestQuery, RankedBlocks> _nearestMemo = new HashMap<>();
+
+    // Finished scans, published by the scan worker and picked up by the client thread.
+    private final AtomicReference<ScanBatch> _finishedScans = new AtomicReference<>();
+    private boolean _scanInFlight;
+    // Bumped whenever a block in a chunk changes, so we can tell if a scan result went stale while it was running.
+    private final Long2IntHashMap _chunkGenerations = new Long2IntHashMap();
+    private int _resetCount;
+
+    // What we remember about chunks we've left, per dimension. Opened for whatever server we're on.
+    private final EnumMap<Dimension, BlockKnowledgeStore> _stores = new EnumMap<>(Dimension.class);
 
-    private final Object _scanMutex = new Object();
-    // Only perform scans at the END of our frame
-    private final Semaphore _endOfFrameMutex = new Semaphore(1);
-    //private Block _currentlyTracking = null;
     private final AltoClef _mod;
-    private boolean _scanning = false;
 
     public BlockTracker(AltoClef mod, TrackerManager manager) {
         super(manager);
         _mod = mod;
-        // First time, track immediately
-        _timer.forceElapse();
-        _forceElapseTimer.forceElapse();
+        for (Dimension dimension : Dimension.values()) {
+            _caches.put(dimension, new PosCache());
+        }
 
-        // Listen for block placement
-        EventBus.subscribe(BlockPlaceEvent.class, evt -> addBlock(evt.blockState.getBlock(), evt.blockPos));
+        // Scan chunks once as they come in, and keep up with every change after that.
+        EventBus.subscribe(ChunkLoadEvent.class, evt -> onChunkLoad(evt.chunk.getPos()));
+        EventBus.subscribe(ChunkUnloadEvent.class, evt -> onChunkUnload(evt.chunkPos));
+        EventBus.subscribe(BlockStateChangedEvent.class, evt -> onBlockChanged(evt.blockPos, evt.oldState, evt.newState));
     }
 
     @Override
     protected void updateState() {
-        if (shouldUpdate()) {
-            update();
-        }
-    }
-
-    // We want our `_trackingBlocks` value to be read AFTER tasks have finished ticking
-    public void preTickTask() {
-        try {
-            _endOfFrameMutex.acquire();
-        } catch (InterruptedException e) {
-            Debug.logWarning("Pre-tick failed to acquire block track mutex! (send logs)");
-            e.printStackTrace();
-        }
-    }
-
-    public void postTickTask() {
-        _endOfFrameMutex.release();
+        if (!AltoClef.inGame()) return;
+        _nearestMemo.clear();
+        mergeFinishedScans();
+        BlockKnowledgeStore store = currentStore();
+        if (store != null) {
+            store.update(_mod.getPlayer().getPos(), _config.rememberedRegionRadius, this::onRemembered);
+        }
+        refillSaturatedBlocks();
+        submitPendingChunkScans();
+        currentCache().sweepBlacklist();
+        // Purge if we have too many blocks tracked at once. Cheap when there's nothing to purge.
+        _saturatedBlocks.addAll(currentCache().smartPurge(_mod, _mod.getPlayer().getPos()));
     }
 
     @Override
@@ -107,12 +125,24 @@ public class BlockTracker extends Tracker {
                 cache.clear();
             }
         }
+        _pendingChunkScans.clear();
+        _saturatedBlocks.clear();
+        _scheduler.reset();
+        _nearestMemo.clear();
+        _chunkGenerations.clear();
+        for (BlockKnowledgeStore store : _stores.values()) {
+            store.close();
+        }
+        _stores.clear();
+        // A scan that's still running will come back with the old count and get thrown out.
+        _resetCount++;
     }
 
+    /**
+     * Safe to call from any thread.
+     */
     public boolean isTracking(Block block) {
-        synchronized (_trackingBlocks) {
-            return _trackingBlocks.containsKey(block) && _trackingBlocks.get(block) > 0;
-        }
+        return _trackingSnapshot.contains(block);
     }
 
     /**
@@ -121,22 +151,24 @@ public class BlockTracker extends Tracker {
      * tracked forever (not the end of the world, but other block types will be lost.
      */
     public void trackBlock(Block... blocks) {
-        synchronized (_trackingBlocks) {
-            for (Block block : blocks) {
-                if (!_trackingBlocks.containsKey(block)) {
-                    // We're tracking a new block, so we're not updated.
-                    setDirty();
-                    _trackingBlocks.put(block, 0);
-                    // Force a rescan if these are new blocks and we aren't doing this like every frame.
-                    if (_forceElapseTimer.elapsed()) {
-                        _timer.forceElapse();
-                        _forceElapseTimer.reset();
-                        _forceElapseTimer.setInterval(_config.scanIntervalWhenNewBlocksFound);
-                    }
+        for (Block block : blocks) {
+            if (!_trackingBlocks.containsKey(block)) {
+                // We're tracking a new block, so we're not updated.
+                setDirty();
+                _trackingBlocks.put(block, 0);
+                // Chunks we've already loaded were never scanned for this one.
+                if (AltoClef.inGame()) {
+                    queueLoadedChunkScans(Collections.singleton(block));
+                }
+                // And we might remember some from before.
+                BlockKnowledgeStore store = currentStore();
+                if (store != null) {
+                    store.forEachRemembered(block, this::onRemembered);
                 }
-                _trackingBlocks.put(block, _trackingBlocks.get(block) + 1);
             }
+            _trackingBlocks.put(block, _trackingBlocks.get(block) + 1);
         }
+        _trackingSnapshot = Set.copyOf(_trackingBlocks.keySet());
     }
 
     /**
@@ -145,21 +177,21 @@ public class BlockTracker extends Tracker {
      * Only call this once for every {@link #trackBlock(Block...) trackBlock}.
      */
     public void stopTracking(Block... blocks) {
-        synchronized (_trackingBlocks) {
-            for (Block block : blocks) {
-                if (_trackingBlocks.containsKey(block)) {
-                    int current = _trackingBlocks.get(block);
-                    if (current == 0) {
-                        Debug.logWarning("Untracked block " + block + " more times than necessary. BlockTracker stack is unreliable from this point on.");
-                    } else {
-                        _trackingBlocks.put(block, current - 1);
-                        if (_trackingBlocks.get(block) <= 0) {
-                            _trackingBlocks.remove(block);
-                        }
+        for (Block block : blocks) {
+            if (_trackingBlocks.containsKey(block)) {
+                int current = _trackingBlocks.get(block);
+                if (current == 0) {
+                    Debug.logWarning("Untracked block " + block + " more times than necessary. BlockTracker stack is unreliable from this point on.");
+                } else {
+                    _trackingBlocks.put(block, current - 1);
+                    if (_trackingBlocks.get(block) <= 0) {
+                        _trackingBlocks.remove(block);
+                        _scheduler.onStoppedTracking(block);
                     }
                 }
             }
         }
+        _trackingSnapshot = Set.copyOf(_trackingBlocks.keySet());
     }
 
     /**
@@ -167,19 +199,17 @@ public class BlockTracker extends Tracker {
      */
     public void addBlock(Block block, BlockPos pos) {
         if (blockIsValid(pos, block)) {
-            synchronized (_scanMutex) {
-                currentCache().addBlock(block, pos);
-            }
+            _nearestMemo.clear();
+            currentCache().addBlock(block, pos);
         } else {
             Debug.logInternal("INVALID SET: " + block + " " + pos);
         }
     }
 
     public boolean anyFound(Block... blocks) {
-        updateState();
-        synchronized (_scanMutex) {
-            return currentCache().anyFound(blocks);
-        }
+        _scheduler.onQueried(blocks);
+        ensureUpdated();
+        return currentCache().anyFound(blocks);
     }
 
     /**
@@ -189,10 +219,9 @@ public class BlockTracker extends Tracker {
      * @param blocks      The blocks to check for
      */
     public boolean anyFound(Predicate<BlockPos> isValidTest, Block... blocks) {
-        updateState();
-        synchronized (_scanMutex) {
-            return currentCache().anyFound(isValidTest, blocks);
-        }
+        _scheduler.onQueried(blocks);
+        ensureUpdated();
+        return currentCache().anyFound(isValidTest, blocks);
     }
 
     public Optional<BlockPos> getNearestTracking(Block... blocks) {
@@ -217,29 +246,69 @@ public class BlockTracker extends Tracker {
      * @return Optional.of(block position) if found, otherwise Optional.empty
      */
     public Optional<BlockPos> getNearestTracking(Vec3d pos, Predicate<BlockPos> isValidTest, Block... blocks) {
-        synchronized (_trackingBlocks) {
-            for (Block block : blocks) {
-                if (!_trackingBlocks.containsKey(block)) {
-                    Debug.logWarning("BlockTracker: Not tracking block " + block + " right now.");
-                    return Optional.empty();
-                }
+        for (Block block : blocks) {
+            if (!isTracking(block)) {
+                Debug.logWarning("BlockTracker: Not tracking block " + block + " right now.");
+                return Optional.empty();
             }
         }
-        // Make sure we've scanned the first time if we need to.
-        updateState();
-        synchronized (_scanMutex) {
-            return currentCache().getNearest(_mod, pos, isValidTest, blocks);
-        }
+        List<BlockPos> nearest = getNearestTracking(pos, 1, isValidTest, blocks);
+        return nearest.isEmpty() ? Optional.empty() : Optional.of(nearest.get(0));
     }
 
     /**
      * Returns the locations of all tracked blocks of a given type
      */
     public List<BlockPos> getKnownLocations(Block... blocks) {
-        updateState();
-        synchronized (_scanMutex) {
-            return currentCache().getKnownLocations(blocks);
-        }
+        _scheduler.onQueried(blocks);
+        ensureUpdated();
+        return currentCache().getKnownLocations(blocks);
+    }
+
+    /**
+     * Gets up to `k` of the nearest tracked blocks of any of the given types, closest first, in one search.
+     * <p>
+     * The ranking is remembered until the next tick or until a block changes, so asking again (with any filter)
+     * is usually just a walk down a short list.
+     *
+     * @param pos         From what position?
+     * @param k           How many blocks to return at most
+     * @param isValidTest Filter predicate
+     * @param blocks      The blocks to check for
+     */
+    public List<BlockPos> getNearestTracking(Vec3d pos, int k, Predicate<BlockPos> isValidTest, Block... blocks) {
+        _scheduler.onQueried(blocks);
+        ensureUpdated();
+        if (k <= 0) return new ArrayList<>();
+
+        NearestQuery query = new NearestQuery(pos, Set.copyOf(Arrays.asList(blocks)));
+        RankedBlocks ranked = _nearestMemo.get(query);
+        if (ranked == null) {
+            int depth = Math.max(k, NEAREST_MEMO_DEPTH);
+            List<BlockPos> found = currentCache().getNearest(_mod, pos, depth, p -> true, blocks);
+            ranked = new RankedBlocks(found, found.size() < depth);
+            _nearestMemo.put(query, ranked);
+        }
+
+        List<BlockPos> result = new ArrayList<>(Math.min(k, ranked.positions().size()));
+        for (BlockPos candidate : ranked.positions()) {
+            if (!isValidTest.test(candidate)) continue;
+            result.add(candidate);
+            if (result.size() >= k) return result;
+        }
+        // Anything past what we remember ranks below all of it, so if the list was complete, so are we.
+        if (ranked.complete()) return result;
+        // The filter threw out too much, search properly.
+        return currentCache().getNearest(_mod, pos, k, isValidTest, blocks);
+    }
+
+    /**
+     * Returns the locations of all tracked blocks of a given type within a radius, without scanning the world.
+     */
+    public List<BlockPos> getKnownLocationsWithinRange(Vec3d pos, double range, Block... blocks) {
+        _scheduler.onQueried(blocks);
+        ensureUpdated();
+        return currentCache().getWithinRange(pos, range, p -> true, blocks);
     }
 
     public Optional<BlockPos> getNearestWithinRange(BlockPos pos, double range, Block... blocks) {
@@ -254,142 +323,250 @@ public class BlockTracker extends Tracker {
      * @param blocks What blocks to check for
      */
     public Optional<BlockPos> getNearestWithinRange(Vec3d pos, double range, Block... blocks) {
-        int minX = (int) Math.floor(pos.x - range),
-                maxX = (int) Math.floor(pos.x + range),
-                minY = (int) Math.floor(pos.y - range),
-                maxY = (int) Math.floor(pos.y + range),
-                minZ = (int) Math.floor(pos.z - range),
-                maxZ = (int) Math.floor(pos.z + range);
-        double closestDistance = Float.POSITIVE_INFINITY;
-        BlockPos nearest = null;
-        for (int x = minX; x <= maxX; ++x) {
-            for (int y = minY; y <= maxY; ++y) {
-                for (int z = minZ; z <= maxZ; ++z) {
-                    BlockPos check = new BlockPos(x, y, z);
-                    synchronized (_scanMutex) {
-                        if (currentCache().blockUnreachable(check)) continue;
-                    }
+        assert MinecraftClient.getInstance().world != null;
+        PosCache cache = currentCache();
+        BlockPos nearest = ShellSearch.findNearest(MinecraftClient.getInstance().world, pos, range, state -> {
+            for (Block type : blocks) {
+                if (state.getBlock() == type) return true;
+            }
+            return false;
+        }, cache::blockUnreachable);
+        return Optional.ofNullable(nearest);
+    }
 
-                    assert MinecraftClient.getInstance().world != null;
-                    Block b = MinecraftClient.getInstance().world.getBlockState(check).getBlock();
-                    boolean valid = false;
-                    for (Block type : blocks) {
-                        if (type == b) {
-                            valid = true;
-                            break;
-                        }
-                    }
-                    if (!valid) continue;
-                    if (check.isWithinDistance(pos, range)) {
-                        double sq = check.getSquaredDistance(pos);
-                        if (sq < closestDistance) {
-                            closestDistance = sq;
-                            nearest = check;
-                        }
-                    }
+    private void onChunkLoad(ChunkPos pos) {
+        // Don't scan right away, we're in the middle of loading the chunk.
+        _pendingChunkScans.put(pos, null);
+    }
+
+    private void onChunkUnload(ChunkPos pos) {
+        _nearestMemo.clear();
+        boolean neverScanned = _pendingChunkScans.containsKey(pos) && _pendingChunkScans.get(pos) == null;
+        Set<Block> unscanned = _pendingChunkScans.remove(pos);
+        _chunkGenerations.remove(pos.toLong());
+        BlockKnowledgeStore store = currentStore();
+        if (store == null) {
+            currentCache().removeChunk(pos);
+            return;
+        }
+        // Remember what we saw here. What's in the cache stays, it's exactly what we'd load back from the store anyway.
+        Set<Block> purged = currentCache().forgetPurged(pos);
+        if (neverScanned) return;
+        Set<Block> types = new HashSet<>(_trackingSnapshot);
+        if (unscanned != null) {
+            types.removeAll(unscanned);
+        }
+        // We threw some of these out, so what's left isn't everything that's there. Keep what we remembered before.
+        types.removeAll(purged);
+        Map<Block, long[]> found = new HashMap<>();
+        for (Block block : types) {
+            long[] positions = currentCache().getChunk(pos, block);
+            if (positions.length != 0) {
+                found.put(block, positions);
+            }
+        }
+        store.rememberChunk(pos, types, found);
+    }
+
+    // Something we remember from before. Only trust it until the chunk loads and gets scanned for real.
+    private void onRemembered(ChunkPos chunk, Block block, long[] positions) {
+        if (!isTracking(block) || _mod.getChunkTracker().isChunkLoaded(chunk)) return;
+        _nearestMemo.clear();
+        PosCache cache = currentCache();
+        for (long pos : positions) {
+            cache.addBlock(block, BlockPos.fromLong(pos));
+        }
+    }
+
+    private void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState) {
+        Block newBlock = newState.getBlock();
+        boolean trackNew = isTracking(newBlock);
+        _chunkGenerations.addTo(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4), 1);
+        _nearestMemo.clear();
+        PosCache cache = currentCache();
+        if (oldState.getBlock() != newBlock) {
+            cache.removeBlock(pos, oldState.getBlock());
+        }
+        if (trackNew) {
+            cache.addBlock(newBlock, pos);
+        }
+    }
+
+    /**
+     * Queue every loaded chunk to be scanned for some blocks, closest chunks first.
+     */
+    private void queueLoadedChunkScans(Collection<Block> blocks) {
+        ChunkPos center = _mod.getPlayer().getChunkPos();
+        List<ChunkPos> loaded = _mod.getChunkTracker().getLoadedChunks();
+        loaded.sort(Comparator.comparingInt(chunk -> Math.max(Math.abs(chunk.x - center.x), Math.abs(chunk.z - center.z))));
+        for (ChunkPos chunk : loaded) {
+            if (_pendingChunkScans.containsKey(chunk)) {
+                Set<Block> pending = _pendingChunkScans.get(chunk);
+                // null means we're already scanning for everything.
+                if (pending != null) {
+                    pending.addAll(blocks);
                 }
+            } else {
+                _pendingChunkScans.put(chunk, new HashSet<>(blocks));
             }
         }
-        return Optional.ofNullable(nearest);
     }
 
-    private boolean shouldUpdate() {
-        return _timer.elapsed();
+    /**
+     * If we've had to throw away blocks, there are more out there. Go look for them again once we've moved
+     * far enough that different blocks would be the closest ones, once we've used up what we had, or once
+     * the type's refresh interval is up (shorter the more tasks ask about it).
+     */
+    private void refillSaturatedBlocks() {
+        if (_saturatedBlocks.isEmpty()) return;
+        _saturatedBlocks.removeIf(block -> !isTracking(block));
+        List<Block> toRefill = _scheduler.getDueForRefresh(_saturatedBlocks, _mod.getPlayer().getPos(), _config.refillDistance,
+                block -> currentCache().getTrackCount(block) < _config.maxCacheSizePerBlockType / 2,
+                _config.minRefreshSeconds, _config.maxRefreshSeconds);
+        if (!toRefill.isEmpty()) {
+            toRefill.forEach(_saturatedBlocks::remove);
+            queueLoadedChunkScans(toRefill);
+        }
     }
 
-    private void update() {
-        // Perform a baritone scan
-        _timer.reset();
-        _timer.setInterval(_config.scanInterval);
-        CalculationContext ctx = new CalculationContext(_mod.getClientBaritone(), _config.scanAsynchronously);
-        if (_config.scanAsynchronously) {
-            if (_scanning && _asyncForceResetScanFlag.elapsed()) {
-                Debug.logMessage("SCANNING TOOK TOO LONG! Will assume it ended mid way. Hopefully this won't break anything...");
-                _scanning = false;
+    /**
+     * Hands the next few queued chunks to the scan worker, unless it's still busy with the last batch.
+     */
+    private void submitPendingChunkScans() {
+        if (_pendingChunkScans.isEmpty() || _scanInFlight) return;
+        Set<Block> tracking = _trackingSnapshot;
+        if (tracking.isEmpty()) {
+            // New blocks will queue up whatever chunks are loaded when they get tracked.
+            _pendingChunkScans.clear();
+            return;
+        }
+        List<ChunkScanJob> jobs = new ArrayList<>();
+        Iterator<Map.Entry<ChunkPos, Set<Block>>> pending = _pendingChunkScans.entrySet().iterator();
+        int budget = _scheduler.getChunkBudget(_config.scanBudgetMicrosPerTick, _config.chunkScansPerTick);
+        while (jobs.size() < budget && pending.hasNext()) {
+            Map.Entry<ChunkPos, Set<Block>> entry = pending.next();
+            pending.remove();
+            Set<Block> toScan = tracking;
+            if (entry.getValue() != null) {
+                toScan = new HashSet<>(entry.getValue());
+                toScan.retainAll(tracking);
             }
-            if (!_scanning) {
-                Baritone.getExecutor().execute(() -> {
-                    _scanning = true;
-                    _asyncForceResetScanFlag.reset();
-                    rescanWorld(ctx, true);
-                    _scanning = false;
-                });
+            ChunkPos pos = entry.getKey();
+            if (toScan.isEmpty() || !_mod.getChunkTracker().isChunkLoaded(pos)) continue;
+            jobs.add(new ChunkScanJob(_mod.getWorld().getChunk(pos.x, pos.z), _chunkGenerations.get(pos.toLong(), 0), Set.copyOf(toScan)));
+        }
+        if (jobs.isEmpty()) return;
+
+        _scanInFlight = true;
+        PosCache target = currentCache();
+        int resetCount = _resetCount;
+        Runnable scan = () -> {
+            // Built privately, nobody else can see this until it's published.
+            List<ChunkScanResult> results = new ArrayList<>(jobs.size());
+            long start = System.nanoTime();
+            try {
+                for (ChunkScanJob job : jobs) {
+                    results.add(job.run());
+                }
+            } catch (Exception e) {
+                Debug.logWarning("Block scan failed part way through, some chunks will be rescanned later.");
+                e.printStackTrace();
+            } finally {
+                _finishedScans.set(new ScanBatch(target, resetCount, List.copyOf(results), jobs, System.nanoTime() - start));
             }
+        };
+        if (_config.scanAsynchronously) {
+            Baritone.getExecutor().execute(scan);
         } else {
-            // Synchronous scanning.
-            rescanWorld(ctx, false);
+            scan.run();
         }
     }
 
-    private void rescanWorld(CalculationContext ctx, boolean async) {
-        Block[] blocksToScan;
-        if (async) {
-            // Wait for end of frame
-            try {
-                _endOfFrameMutex.acquire();
-                _endOfFrameMutex.release();
-            } catch (InterruptedException e) {
-                Debug.logWarning("RESCAN INTERRUPTED! Will SKIP the scan (see logs)");
-                _endOfFrameMutex.release();
-                e.printStackTrace();
-                return;
+    /**
+     * Folds whatever the scan worker has published into our caches.
+     */
+    private void mergeFinishedScans() {
+        ScanBatch batch = _finishedScans.getAndSet(null);
+        if (batch == null) return;
+        _scanInFlight = false;
+        _scheduler.recordScan(batch.results().size(), batch.scanNanos());
+        if (batch.resetCount() != _resetCount) return;
+        _nearestMemo.clear();
+
+        Set<ChunkPos> scanned = new HashSet<>();
+        for (ChunkScanResult result : batch.results()) {
+            WorldChunk chunk = result.job().chunk();
+            ChunkPos pos = chunk.getPos();
+            scanned.add(pos);
+            // Unloaded (and maybe loaded again) while we were scanning, the chunk load already queued a new scan.
+            if (_mod.getWorld() == null || _mod.getWorld().getChunk(pos.x, pos.z) != chunk) continue;
+            // Something changed while we were scanning, do it again.
+            if (_chunkGenerations.get(pos.toLong(), 0) != result.job().generation()) {
+                requeueChunkScan(pos, result.job().blocks());
+                continue;
+            }
+            PosCache cache = batch.cache();
+            // Whatever we knew about this chunk is replaced by what's actually there.
+            cache.removeChunk(pos, result.job().blocks());
+            for (int i = 0; i < result.positions().length; ++i) {
+                cache.addBlock(result.blocks()[i], BlockPos.fromLong(result.positions()[i]));
             }
         }
-        synchronized (_trackingBlocks) {
-            Debug.logInternal("Rescanning world for " + _trackingBlocks.size() + " blocks... Hopefully not dummy slow.");
-            blocksToScan = new Block[_trackingBlocks.size()];
-            _trackingBlocks.keySet().toArray(blocksToScan);
+        // Anything that didn't make it (the scan failed part way) goes back in the queue.
+        for (ChunkScanJob job : batch.jobs()) {
+            if (!scanned.contains(job.chunk().getPos())) {
+                requeueChunkScan(job.chunk().getPos(), job.blocks());
+            }
         }
+    }
 
-        List<BlockPos> knownBlocks;
-        synchronized (_scanMutex) {
-            knownBlocks = currentCache().getKnownLocations(blocksToScan);
+    private void requeueChunkScan(ChunkPos pos, Set<Block> blocks) {
+        if (!_pendingChunkScans.containsKey(pos)) {
+            _pendingChunkScans.put(pos, new HashSet<>(blocks));
+        } else if (_pendingChunkScans.get(pos) != null) {
+            _pendingChunkScans.get(pos).addAll(blocks);
         }
+    }
 
-        // Clear invalid block pos before rescan
-        if (!knownBlocks.isEmpty()) {
-            for (BlockPos check : knownBlocks) {
-                if (!blockIsValid(check, blocksToScan)) {
-                    //Debug.logInternal("Removed at " + check);
-                    synchronized (_scanMutex) {
-                        currentCache().removeBlock(check, blocksToScan);
-                    }
-                }
+    private record ChunkScanJob(WorldChunk chunk, int generation, Set<Block> blocks) {
+        // Runs on the scan worker. Only reads the chunk.
+        public ChunkScanResult run() {
+            List<Long> positions = new ArrayList<>();
+            List<Block> found = new ArrayList<>();
+            ChunkSectionScanner.scanChunk(chunk, state -> blocks.contains(state.getBlock()), (pos, state) -> {
+                positions.add(pos.asLong());
+                found.add(state.getBlock());
+                return false;
+            });
+            long[] packed = new long[positions.size()];
+            for (int i = 0; i < packed.length; ++i) {
+                packed[i] = positions.get(i);
             }
+            return new ChunkScanResult(this, packed, found.toArray(Block[]::new));
         }
+    }
 
-        // The scanning may run asynchronously.
-        BlockOptionalMetaLookup boml = new BlockOptionalMetaLookup(blocksToScan);
-        List<BlockPos> found = MineProcess.searchWorld(ctx, boml, _config.maxCacheSizePerBlockType, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
-
-        synchronized (_scanMutex) {
-            if (MinecraftClient.getInstance().world != null) {
-                if (!found.isEmpty()) {
-                    for (BlockPos pos : found) {
-                        Block block = MinecraftClient.getInstance().world.getBlockState(pos).getBlock();
-                        synchronized (_trackingBlocks) {
-                            if (_trackingBlocks.containsKey(block)) {
-                                //Debug.logInternal("Good: " + block + " at " + pos);
-                                currentCache().addBlock(block, pos);
-                            }
-                        }
-                    }
-                }
+    private record ChunkScanResult(ChunkScanJob job, long[] positions, Block[] blocks) {
+    }
 
-                // Purge if we have too many blocks tracked at once.
-                currentCache().smartPurge(_mod, _mod.getPlayer().getPos());
-            }
-        }
+    private record NearestQuery(Vec3d origin, Set<Block> blocks) {
+    }
+
+    /**
+     * @param complete Whether these are all the valid blocks there are, rather than just the closest few.
+     */
+    private record RankedBlocks(List<BlockPos> positions, boolean complete) {
+    }
+
+    private record ScanBatch(PosCache cache, int resetCount, List<ChunkScanResult> results, List<ChunkScanJob> jobs, long scanNanos) {
     }
 
     // Checks whether it would be WRONG to say "at pos the block is block"
     // Returns true if wrong, false if correct OR undetermined/unsure.
     public boolean blockIsValid(BlockPos pos, Block... blocks) {
-        synchronized (_scanMutex) {
-            // We can't reach it, don't even try.
-            if (currentCache().blockUnreachable(pos)) {
-                return false;
-            }
+        // We can't reach it, don't even try.
+        if (currentCache().blockUnreachable(pos)) {
+            return false;
         }
         // It might be OK to remove this. Will have to test.
         if (!_mod.getChunkTracker().isChunkLoaded(pos)) {
@@ -425,9 +602,7 @@ public class BlockTracker extends Tracker {
      * @return Whether that block is considered unreachable
      */
     public boolean unreachable(BlockPos pos) {
-        synchronized (_scanMutex) {
-            return currentCache().blockUnreachable(pos);
-        }
+        return currentCache().blockUnreachable(pos);
     }
 
     /**
@@ -437,30 +612,65 @@ public class BlockTracker extends Tracker {
      * @param allowedFailures how many times we can try reaching before we finally declare this block "unreachable"
      */
     public void requestBlockUnreachable(BlockPos pos, int allowedFailures) {
-        synchronized (_scanMutex) {
-            currentCache().blacklistBlockUnreachable(_mod, pos, allowedFailures);
-        }
+        _nearestMemo.clear();
+        currentCache().blacklistBlockUnreachable(_mod, pos, allowedFailures);
     }
 
     public void requestBlockUnreachable(BlockPos pos) {
         requestBlockUnreachable(pos, _config.defaultUnreachableAttemptsAllowed);
     }
 
+    /**
+     * Passes every block type we have positions for in this dimension, with its index. For snapshots.
+     */
+    void forEachTracked(BiConsumer<Block, SectionBucketIndex> consumer) {
+        if (!AltoClef.inGame()) return;
+        currentCache()._cachedBlocks.forEach(consumer);
+    }
+
     private PosCache currentCache() {
+        return _caches.get(WorldHelper.getCurrentDimension());
+    }
+
+    private BlockKnowledgeStore currentStore() {
+        if (!_config.rememberBlocks || !AltoClef.inGame()) return null;
         Dimension dimension = WorldHelper.getCurrentDimension();
-        if (!_caches.containsKey(dimension)) {
-            _caches.put(dimension, new PosCache());
+        if (!_stores.containsKey(dimension)) {
+            // Stores are closed when we leave the world, so this is always the server we're on right now.
+            File folder = ConfigHelper.getDataFile("block_memory" + File.separator + getServerFolderName() + File.separator + dimension.name().toLowerCase(Locale.ROOT));
+            _stores.put(dimension, new BlockKnowledgeStore(folder));
+        }
+        return _stores.get(dimension);
+    }
+
+    private static String getServerFolderName() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        String name;
+        if (client.getServer() != null) {
+            name = "singleplayer_" + client.getServer().getSaveProperties().getLevelName();
+        } else if (client.getCurrentServerEntry() != null) {
+            name = client.getCurrentServerEntry().address;
+        } else {
+            name = "unknown";
         }
-        return _caches.get(dimension);
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
     }
 
 
     static class PosCache {
-        private final HashMap<Block, List<BlockPos>> _cachedBlocks = new HashMap<>();
+        private final HashMap<Block, SectionBucketIndex> _cachedBlocks = new HashMap<>();
 
-        private final HashMap<BlockPos, Block> _cachedByPosition = new HashMap<>();
+        private final Long2ObjectHashMap<Block> _cachedByPosition = new Long2ObjectHashMap<>();
 
         private final WorldLocateBlacklist _blacklist = new WorldLocateBlacklist();
+        // What `_blacklist` says is unreachable, republished whenever that changes so other threads can read it.
+        private volatile LongHashSet _unreachableSnapshot = new LongHashSet();
+        // Scratch for `sweepBlacklist`.
+        private final LongHashSet _released = new LongHashSet();
+
+        private final BlockCacheEvictionPolicy _eviction = new DistanceRecencyEvictionPolicy();
+        // Block types we've purged positions of, per loaded chunk. We don't know all of those in that chunk anymore.
+        private final Long2ObjectHashMap<Set<Block>> _purgedByChunk = new Long2ObjectHashMap<>();
 
         public boolean anyFound(Block... blocks) {
             for (Block block : blocks) {
@@ -472,10 +682,8 @@ public class BlockTracker extends Tracker {
         public boolean anyFound(Predicate<BlockPos> isValidTest, Block... blocks) {
             for (Block block : blocks) {
                 if (_cachedBlocks.containsKey(block)) {
-                    for (BlockPos pos : _cachedBlocks.get(block)) {
-                        if (isValidTest.test(pos)) {
-                            return true;
-                        }
+                    if (_cachedBlocks.get(block).anyMatch(isValidTest)) {
+                        return true;
                     }
                 }
             }
@@ -485,9 +693,9 @@ public class BlockTracker extends Tracker {
         public List<BlockPos> getKnownLocations(Block... blocks) {
             List<BlockPos> result = new ArrayList<>();
             for (Block block : blocks) {
-                List<BlockPos> found = _cachedBlocks.get(block);
+                SectionBucketIndex found = _cachedBlocks.get(block);
                 if (found != null) {
-                    result.addAll(found);
+                    found.addAllTo(result);
                 }
             }
             return result;
@@ -496,31 +704,79 @@ public class BlockTracker extends Tracker {
         public void removeBlock(BlockPos pos, Block... blocks) {
             for (Block block : blocks) {
                 if (_cachedBlocks.containsKey(block)) {
-                    _cachedBlocks.get(block).remove(pos);
-                    _cachedByPosition.remove(pos);
-                    if (_cachedBlocks.get(block).size() == 0) {
+                    if (_cachedBlocks.get(block).remove(pos)) {
+                        _cachedByPosition.remove(pos.asLong());
+                        _eviction.onRemoved(block, pos.asLong());
+                    }
+                    if (_cachedBlocks.get(block).isEmpty()) {
                         _cachedBlocks.remove(block);
                     }
                 }
             }
         }
 
+        /**
+         * Forget every block of these types in a chunk.
+         */
+        public void removeChunk(ChunkPos chunk, Collection<Block> blocks) {
+            // Whatever gets added back in is all there is again.
+            Set<Block> purged = _purgedByChunk.get(chunk.toLong());
+            if (purged != null) {
+                purged.removeAll(blocks);
+                if (purged.isEmpty()) {
+                    _purgedByChunk.remove(chunk.toLong());
+                }
+            }
+            for (Block block : blocks) {
+                SectionBucketIndex index = _cachedBlocks.get(block);
+                if (index == null) continue;
+                for (BlockPos pos : index.removeColumn(chunk.x, chunk.z)) {
+                    _cachedByPosition.remove(pos.asLong());
+                    _eviction.onRemoved(block, pos.asLong());
+                }
+                if (index.isEmpty()) {
+                    _cachedBlocks.remove(block);
+                }
+            }
+        }
+
+        public long[] getChunk(ChunkPos chunk, Block block) {
+            SectionBucketIndex index = _cachedBlocks.get(block);
+            return index != null ? index.getColumn(chunk.x, chunk.z) : new long[0];
+        }
+
+        public void removeChunk(ChunkPos chunk) {
+            removeChunk(chunk, new ArrayList<>(_cachedBlocks.keySet()));
+            _purgedByChunk.remove(chunk.toLong());
+        }
+
+        /**
+         * @return The block types we've purged positions of in this chunk since it was last scanned for them.
+         */
+        public Set<Block> forgetPurged(ChunkPos chunk) {
+            Set<Block> purged = _purgedByChunk.remove(chunk.toLong());
+            return purged != null ? purged : Collections.emptySet();
+        }
+
         public void addBlock(Block block, BlockPos pos) {
             if (blockUnreachable(pos)) return;
-            if (_cachedByPosition.containsKey(pos)) {
-                if (_cachedByPosition.get(pos) == block) {
-                    // We're already tracked
+            Block current = _cachedByPosition.get(pos.asLong());
+            if (current != null) {
+                if (current == block) {
+                    // We're already tracked, but we've just seen it again.
+                    _eviction.onAccessed(block, pos.asLong());
                     return;
                 } else {
                     // We're tracked incorrectly, fix
-                    removeBlock(pos, block);
+                    removeBlock(pos, current);
                 }
             }
             if (!anyFound(block)) {
-                _cachedBlocks.put(block, new ArrayList<>());
+                _cachedBlocks.put(block, new SectionBucketIndex());
             }
             _cachedBlocks.get(block).add(pos);
-            _cachedByPosition.put(pos, block);
+            _cachedByPosition.put(pos.asLong(), block);
+            _eviction.onAdded(block, pos.asLong());
         }
 
 
@@ -528,14 +784,22 @@ public class BlockTracker extends Tracker {
             Debug.logInternal("CLEARED BLOCK CACHE");
             _cachedBlocks.clear();
             _cachedByPosition.clear();
+            _eviction.clear();
+            _purgedByChunk.clear();
             _blacklist.clear();
+            _unreachableSnapshot = new LongHashSet();
+        }
+
+        public int getTrackCount(Block block) {
+            SectionBucketIndex index = _cachedBlocks.get(block);
+            return index != null ? index.size() : 0;
         }
 
         public int getBlockTrackCount() {
             int count = 0;
             if (!_cachedBlocks.values().isEmpty()) {
-                for (List<BlockPos> list : _cachedBlocks.values()) {
-                    count += list.size();
+                for (SectionBucketIndex index : _cachedBlocks.values()) {
+                    count += index.size();
                 }
             }
             return count;
@@ -543,153 +807,150 @@ public class BlockTracker extends Tracker {
 
         public void blacklistBlockUnreachable(AltoClef mod, BlockPos pos, int allowedFailures) {
             _blacklist.blackListItem(mod, pos, allowedFailures);
+            boolean unreachable = _blacklist.unreachable(pos);
+            LongHashSet current = _unreachableSnapshot;
+            if (unreachable != current.contains(pos.asLong())) {
+                // Copy, never modify a published snapshot.
+                LongHashSet updated = new LongHashSet(current.size() + 1);
+                current.forEach(updated::add);
+                if (unreachable) {
+                    updated.add(pos.asLong());
+                } else {
+                    updated.remove(pos.asLong());
+                }
+                _unreachableSnapshot = updated;
+            }
         }
 
-        public boolean blockUnreachable(BlockPos pos) {
-            return _blacklist.unreachable(pos);
+        /**
+         * Lets blocks that have been blacklisted long enough back in.
+         */
+        public void sweepBlacklist() {
+            _released.clear();
+            _blacklist.sweep(_released::add);
+            if (_released.isEmpty()) return;
+            LongHashSet current = _unreachableSnapshot;
+            LongHashSet updated = new LongHashSet(current.size());
+            current.forEach(pos -> {
+                if (!_released.contains(pos)) updated.add(pos);
+            });
+            _unreachableSnapshot = updated;
         }
 
-        // Gets nearest block. For now does linear search. In the future might optimize this a bit
-        public Optional<BlockPos> getNearest(AltoClef mod, Vec3d position, Predicate<BlockPos> isValid, Block... blocks) {
-            if (!anyFound(blocks)) {
-                //Debug.logInternal("(failed cataloguecheck for " + block.getTranslationKey() + ")");
-                return Optional.empty();
-            }
-
-            BlockPos closest = null;
-            double minScore = Double.POSITIVE_INFINITY;
-
-            List<BlockPos> blockList = getKnownLocations(blocks);
-
-            int toPurge = blockList.size() - _config.maxCacheSizePerBlockType;
-
-            boolean closestPurged = false;
-            if (!blockList.isEmpty()) {
-                for (BlockPos pos : blockList) {
-                    // If our current block isn't valid, fix it up. This cleans while we're iterating.
-                    if (!mod.getBlockTracker().blockIsValid(pos, blocks)) {
-                        removeBlock(pos, blocks);
-                        continue;
-                    }
-                    if (!isValid.test(pos)) continue;
-
-                    double score = BaritoneHelper.calculateGenericHeuristic(position, WorldHelper.toVec3d(pos));
-
-                    boolean currentlyClosest = false;
-                    boolean purged = false;
-
-                    if (score < minScore) {
-                        minScore = score;
-                        closest = pos;
-                        currentlyClosest = true;
-                    }
+        /**
+         * Safe to call from any thread.
+         */
+        public boolean blockUnreachable(BlockPos pos) {
+            return blockUnreachable(pos.asLong());
+        }
 
-                    if (toPurge > 0) {
-                        double sqDist = position.squaredDistanceTo(WorldHelper.toVec3d(pos));
-                        if (sqDist > _config.cutoffDistance * _config.cutoffDistance) {
-                            // cut this one off.
-                            for (Block block : blocks) {
-                                if (_cachedBlocks.containsKey(block)) {
-                                    removeBlock(pos, block);
-                                }
-                            }
-                            toPurge--;
-                            purged = true;
-                        }
-                    }
+        public boolean blockUnreachable(long pos) {
+            return _unreachableSnapshot.contains(pos);
+        }
 
-                    if (currentlyClosest) {
-                        closestPurged = purged;
-                    }
+        /**
+         * Gets up to `k` of the nearest blocks of any of the given types, closest first, in one search over all of them.
+         */
+        public List<BlockPos> getNearest(AltoClef mod, Vec3d position, int k, Predicate<BlockPos> isValid, Block... blocks) {
+            List<SectionBucketIndex> indices = new ArrayList<>(blocks.length);
+            for (Block block : blocks) {
+                SectionBucketIndex index = _cachedBlocks.get(block);
+                if (index != null) {
+                    indices.add(index);
                 }
             }
+            if (indices.isEmpty()) return new ArrayList<>();
 
-            while (toPurge > 0) {
-                if (blockList.size() == 0) {
-                    //noinspection UnusedAssignment
-                    toPurge = 0;
-                    break;
+            List<BlockPos> invalid = new ArrayList<>();
+            Predicate<BlockPos> check = pos -> {
+                if (!mod.getBlockTracker().blockIsValid(pos, blocks)) {
+                    invalid.add(pos);
+                    return false;
                 }
-                blockList.remove(blockList.size() - 1);
-                toPurge--;
+                return isValid.test(pos);
+            };
+            List<BlockPos> result = SectionBucketIndex.getNearest(indices, position, k, DistanceMetric.BARITONE_HEURISTIC, check);
+            for (BlockPos pos : invalid) {
+                removeBlock(pos, blocks);
             }
-
-            // Special case: Our closest was purged. Add us back.
-            if (closestPurged) {
-                Debug.logInternal("Rare edge case: Closest block was purged cause it was real far away, it will now be added back.");
-                blockList.add(closest);
+            for (BlockPos pos : result) {
+                Block block = _cachedByPosition.get(pos.asLong());
+                if (block != null) {
+                    _eviction.onAccessed(block, pos.asLong());
+                }
             }
-
-            return Optional.ofNullable(closest);
+            return result;
         }
 
         /**
-         * Purge enough blocks so our size is small enough
+         * Gets every cached block within `range` of `position`.
          */
-        public void smartPurge(AltoClef mod, Vec3d playerPos) {
-
-            // Clear cached by position blocks, as they can be a handful.
-            try {
-                int MAX_CACHE_SIZE = _config.maxTotalCacheSize;
-                if (_cachedByPosition.size() > MAX_CACHE_SIZE) {
-                    List<BlockPos> toRemoveList = new ArrayList<>(_cachedByPosition.size() - MAX_CACHE_SIZE);
-                    // Just purge randomly.
-                    if (!_cachedByPosition.keySet().isEmpty()) {
-                        for (BlockPos pos : _cachedByPosition.keySet()) {
-                            if (_cachedByPosition.size() - toRemoveList.size() < MAX_CACHE_SIZE) {
-                                break;
-                            }
-                            toRemoveList.add(pos);
-                        }
-                    }
-                    if (!toRemoveList.isEmpty()) {
-                        for (BlockPos toDelete : toRemoveList) {
-                            _cachedByPosition.remove(toDelete);
-                        }
-                    }
+        public List<BlockPos> getWithinRange(Vec3d position, double range, Predicate<BlockPos> isValid, Block... blocks) {
+            List<BlockPos> result = new ArrayList<>();
+            for (Block block : blocks) {
+                SectionBucketIndex index = _cachedBlocks.get(block);
+                if (index != null) {
+                    result.addAll(index.getWithinRange(position, range, isValid));
                 }
-            } catch (Exception e) {
-                Debug.logWarning("Failed to purge/reduce _cachedByPosition cache.: Its size remains at " + _cachedByPosition.size());
             }
+            return result;
+        }
 
-            // ^^^ TODO: Something about that feels fishy, particularly how it's disconnected from the _cachedBlocks purging.
-            // I smell a dangerous edge case bug.
-            if (!_cachedBlocks.keySet().isEmpty()) {
-                for (Block block : _cachedBlocks.keySet()) {
-                    List<BlockPos> tracking = _cachedBlocks.get(block);
-
-                    // Clear blacklisted blocks
-                    try {
-                        // Untrack the blocks further away
-                        tracking = tracking.stream()
-                                .filter(pos -> !_blacklist.unreachable(pos))
-                                // This is invalid, because some blocks we may want to GO TO not BREAK.
-                                //.filter(pos -> !mod.getExtraBaritoneSettings().shouldAvoidBreaking(pos))
-                                .distinct()
-                                .sorted(StlHelper.compareValues((BlockPos blockpos) -> blockpos.getSquaredDistance(playerPos)))
-                                .collect(Collectors.toList());
-                        tracking = tracking.stream()
-                                .limit(_config.maxCacheSizePerBlockType)
-                                .collect(Collectors.toList());
-                        // This won't update otherwise.
-                        _cachedBlocks.put(block, tracking);
-                    } catch (IllegalArgumentException e) {
-                        // Comparison method violates its general contract: Sometimes transitivity breaks.
-                        // In which case, ignore it.
-                        Debug.logWarning("Failed to purge/reduce block search count for " + block + ": It remains at " + tracking.size());
+        /**
+         * Purge enough blocks so our size is small enough.
+         * Only costs as much as the number of blocks we throw out.
+         *
+         * @return The block types that had to be cut down.
+         */
+        public Set<Block> smartPurge(AltoClef mod, Vec3d playerPos) {
+            Set<Block> purged = new HashSet<>();
+            _eviction.setReference(playerPos, _config.cutoffDistance);
+            _eviction.evict(_config.maxCacheSizePerBlockType, _config.maxTotalCacheSize, (block, packed) -> {
+                SectionBucketIndex index = _cachedBlocks.get(block);
+                if (index != null) {
+                    index.remove(BlockPos.fromLong(packed));
+                    if (index.isEmpty()) {
+                        _cachedBlocks.remove(block);
                     }
                 }
-            }
+                _cachedByPosition.remove(packed);
+                purged.add(block);
+                // Only loaded chunks get remembered when they unload, the rest were remembered already.
+                ChunkPos chunk = new ChunkPos(BlockPos.unpackLongX(packed) >> 4, BlockPos.unpackLongZ(packed) >> 4);
+                if (mod.getChunkTracker().isChunkLoaded(chunk)) {
+                    Set<Block> types = _purgedByChunk.get(chunk.toLong());
+                    if (types == null) {
+                        types = new HashSet<>();
+                        _purgedByChunk.put(chunk.toLong(), types);
+                    }
+                    types.add(block);
+                }
+            });
+            return purged;
         }
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
     static class BlockTrackerConfig {
-        public double scanInterval = 7;
-        public double scanIntervalWhenNewBlocksFound = 2;
+        // The most freshly loaded chunks we look through per tick
+        public int chunkScansPerTick = 16;
+        // How much time (in microseconds) chunk scans get per tick, fewer chunks are scanned if they're slow
+        public double scanBudgetMicrosPerTick = 2000;
+        // If we've had to throw away blocks of a type, look for them again after moving this far
+        public double refillDistance = 32;
+        // ... or after this long, for the block type tasks ask about the most
+        public double minRefreshSeconds = 5;
+        // ... up to this long for the one they ask about the least. Types nobody asks about aren't refreshed.
+        public double maxRefreshSeconds = 60;
+        // Scan chunks on a worker thread instead of the client thread
         public boolean scanAsynchronously = true;
-        public int maxTotalCacheSize = 2500;
-        public int maxCacheSizePerBlockType = 25;
+        public int maxTotalCacheSize = 20000;
+        public int maxCacheSizePerBlockType = 500;
         public double cutoffDistance = 128;
         public int defaultUnreachableAttemptsAllowed = 4;
+        // Remember blocks in chunks we've left, on disk, so we don't have to find them all again next time
+        public boolean rememberBlocks = true;
+        // How many regions (32x32 chunks) around the player we keep remembered blocks loaded for
+        public int rememberedRegionRadius = 1;
     }
 }
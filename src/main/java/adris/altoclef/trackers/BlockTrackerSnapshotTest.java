@@ -0,0 +1,186 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.util.helpers.HarnessHelper;
+import net.minecraft.block.Block;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+
+/**
+ * Hammers what {@link BlockTracker} publishes for other threads (what we track, what's unreachable) with readers on
+ * several threads, while the client thread keeps changing it.
+ * <p>
+ * Blocks are only ever tracked (and positions only ever blacklisted) in a fixed order, so any reader that sees one
+ * of them must also see every one before it. A torn or stale snapshot breaks that, a snapshot modified after being
+ * published usually throws.
+ * <p>
+ * Tracks and blacklists things for real, so run it in game (`@test blocksnapshot`) and expect some chat spam.
+ */
+public class BlockTrackerSnapshotTest {
+
+    private static final HarnessHelper HARNESS = new HarnessHelper("BlockTracker snapshots");
+    private static final int READERS = 4;
+    private static final int BLOCKS = 32;
+    private static final int TRACKING_ROUNDS = 50;
+    private static final int POSITIONS = 64;
+
+    public static void test(AltoClef mod) {
+        try {
+            testTrackingSnapshot(mod);
+            testUnreachableSnapshot(mod);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("BlockTracker snapshot check interrupted", e);
+        }
+        HARNESS.passed();
+    }
+
+    private static void testTrackingSnapshot(AltoClef mod) throws InterruptedException {
+        BlockTracker tracker = mod.getBlockTracker();
+        List<Block> blocks = new ArrayList<>();
+        for (Block block : Registries.BLOCK) {
+            if (blocks.size() == BLOCKS) break;
+            if (!tracker.isTracking(block)) blocks.add(block);
+        }
+        HARNESS.check(blocks.size() == BLOCKS, "enough untracked blocks to play with", blocks.size());
+
+        // While tracking, later blocks can only show up after earlier ones. While stopping, earlier ones go first.
+        // Odd phases are for stopping. A check that ran across a phase change proves nothing, so it's skipped.
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicInteger phase = new AtomicInteger();
+        Readers readers = new Readers(failure, () -> {
+            int before = phase.get();
+            String problem = (before & 1) == 1
+                    ? checkSuffix(i -> tracker.isTracking(blocks.get(i)), BLOCKS)
+                    : checkPrefix(i -> tracker.isTracking(blocks.get(i)), BLOCKS);
+            return phase.get() == before ? problem : null;
+        });
+        readers.start();
+        for (int round = 0; round < TRACKING_ROUNDS && failure.get() == null; ++round) {
+            for (Block block : blocks) {
+                tracker.trackBlock(block);
+            }
+            phase.incrementAndGet();
+            for (Block block : blocks) {
+                tracker.stopTracking(block);
+            }
+            phase.incrementAndGet();
+        }
+        readers.stop();
+        HARNESS.check(failure.get() == null, "tracking snapshot is never torn", failure.get());
+        for (Block block : blocks) {
+            HARNESS.check(!tracker.isTracking(block), "everything untracked again", block);
+        }
+        HARNESS.log("%d tracking reads across %d threads during %d track/untrack rounds", readers.getReads(), READERS, TRACKING_ROUNDS);
+    }
+
+    private static void testUnreachableSnapshot(AltoClef mod) throws InterruptedException {
+        // A cache of our own, so we don't blacklist anything in the real world.
+        BlockTracker.PosCache cache = new BlockTracker.PosCache();
+        BlockPos origin = mod.getPlayer().getBlockPos().up(1000);
+        List<BlockPos> positions = new ArrayList<>();
+        for (int i = 0; i < POSITIONS; ++i) {
+            positions.add(origin.add(i, 0, 0));
+        }
+        AtomicReference<String> failure = new AtomicReference<>();
+        Readers readers = new Readers(failure, () -> checkPrefix(i -> cache.blockUnreachable(positions.get(i)), POSITIONS));
+        readers.start();
+        for (BlockPos pos : positions) {
+            // No failures allowed, so the first one blacklists it.
+            cache.blacklistBlockUnreachable(mod, pos, 0);
+            cache.sweepBlacklist();
+        }
+        readers.stop();
+        HARNESS.check(failure.get() == null, "unreachable snapshot is never torn", failure.get());
+        for (BlockPos pos : positions) {
+            HARNESS.check(cache.blockUnreachable(pos), "everything blacklisted ends up unreachable", pos);
+        }
+
+        HARNESS.log("%d unreachable reads across %d threads while blacklisting %d positions", readers.getReads(), READERS, POSITIONS);
+    }
+
+    /**
+     * @return Null if everything seen tracked so far is preceded by tracked ones, otherwise what went wrong.
+     */
+    private static String checkPrefix(IntPredicate isSet, int count) {
+        // Look at the later ones first. If we see one, everything before it was already published.
+        boolean seen = false;
+        for (int i = count - 1; i >= 0; --i) {
+            boolean set = isSet.test(i);
+            if (seen && !set) return "saw a later one, but not #" + i;
+            seen |= set;
+        }
+        return null;
+    }
+
+    private static String checkSuffix(IntPredicate isSet, int count) {
+        boolean seen = false;
+        for (int i = 0; i < count; ++i) {
+            boolean set = isSet.test(i);
+            if (seen && !set) return "saw an earlier one, but not #" + i;
+            seen |= set;
+        }
+        return null;
+    }
+
+    private interface Check {
+        String run();
+    }
+
+    /**
+     * Runs a check over and over on a few threads until stopped, remembering the first thing that went wrong.
+     */
+    private static class Readers {
+        private final AtomicReference<String> _failure;
+        private final Check _check;
+        private final AtomicLong _reads = new AtomicLong();
+        private final List<Thread> _threads = new ArrayList<>();
+        private volatile boolean _running = true;
+
+        public Readers(AtomicReference<String> failure, Check check) {
+            _failure = failure;
+            _check = check;
+        }
+
+        public void start() {
+            for (int t = 0; t < READERS; ++t) {
+                Thread thread = new Thread(() -> {
+                    long reads = 0;
+                    while (_running) {
+                        String problem;
+                        try {
+                            problem = _check.run();
+                        } catch (Exception e) {
+                            problem = "reader threw " + e;
+                        }
+                        if (problem != null) {
+                            _failure.compareAndSet(null, problem);
+                            return;
+                        }
+                        reads++;
+                    }
+                    _reads.addAndGet(reads);
+                }, "BlockTracker snapshot reader " + t);
+                _threads.add(thread);
+            }
+            _threads.forEach(Thread::start);
+        }
+
+        public void stop() throws InterruptedException {
+            _running = false;
+            for (Thread thread : _threads) {
+                thread.join();
+            }
+        }
+
+        public long getReads() {
+            return _reads.get();
+        }
+    }
+}
@@ -2,9 +2,13 @@ package adris.altoclef.trackers;
 
 import adris.altoclef.Debug;
 import adris.altoclef.eventbus.EventBus;
+import adris.altoclef.eventbus.events.EntityAddedEvent;
+import adris.altoclef.eventbus.events.EntityRemovedEvent;
 import adris.altoclef.eventbus.events.PlayerCollidedWithEntityEvent;
 import adris.altoclef.mixins.PersistentProjectileEntityAccessor;
 import adris.altoclef.trackers.blacklisting.EntityLocateBlacklist;
+import adris.altoclef.trackers.spatial.DistanceMetric;
+import adris.altoclef.trackers.spatial.EntityGrid;
 import adris.altoclef.util.ItemTarget;
 import adris.altoclef.util.baritone.CachedProjectile;
 import adris.altoclef.util.helpers.BaritoneHelper;
@@ -12,9 +16,13 @@ import adris.altoclef.util.helpers.EntityHelper;
 import adris.altoclef.util.helpers.ProjectileHelper;
 import adris.altoclef.util.helpers.WorldHelper;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.ItemEntity;
+import net.minecraft.entity.mob.HostileEntity;
 import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.entity.mob.Monster;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.projectile.FishingBobberEntity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
@@ -33,16 +41,36 @@ import java.util.function.Predicate;
 @SuppressWarnings("rawtypes")
 public class EntityTracker extends Tracker {
 
+    // Every entity the world is tracking (but us), kept up to date as they come and go.
+    private final EntityTypeIndex _entities = new EntityTypeIndex();
+    private final HashMap<String, PlayerEntity> _playerMap = new HashMap<>();
+    // The world the above belongs to. If it changes under us (dimension change) we start over.
+    private ClientWorld _trackedWorld;
+
+    // Everything below depends on where things are, so it's worked out again every tick, but only if someone asks.
+
+    private final LazyCategory _positions = new LazyCategory("positions", this::updatePositions);
+    private final LazyCategory _hostileCategory = new LazyCategory("hostiles", this::updateHostiles);
+    private final LazyCategory _itemDrops = new LazyCategory("item drops", this::updateItemDrops);
+    private final LazyCategory _projectileCategory = new LazyCategory("projectiles", this::updateProjectiles);
+    private final List<LazyCategory> _categories = List.of(_positions, _hostileCategory, _itemDrops, _projectileCategory);
+
     private final HashMap<Item, List<ItemEntity>> _itemDropLocations = new HashMap<>();
-    private final HashMap<Class, List<Entity>> _entityMap = new HashMap<>();
+
+    // The same entities (and grounded drops), bucketed by position for range/closest queries.
+    private final EntityGrid<Entity> _entityGrid = new EntityGrid<>();
+    private final EntityGrid<ItemEntity> _itemDropGrid = new EntityGrid<>();
+    // Below this many candidates, going through them directly beats walking the grid.
+    private static final int GRID_QUERY_THRESHOLD = 32;
 
     private final List<Entity> _closeEntities = new ArrayList<>();
     private final List<Entity> _hostiles = new ArrayList<>();
 
     private final List<CachedProjectile> _projectiles = new ArrayList<>();
 
-    private final HashMap<String, PlayerEntity> _playerMap = new HashMap<>();
-    private final HashMap<String, Vec3d> _playerLastCoordinates = new HashMap<>();
+    // Sampled every tick by the tracker manager (there are never many players), see `samplePlayers`.
+    private final PlayerMotionHistory _playerHistory = new PlayerMotionHistory();
+    private long _currentTick;
 
     private final EntityLocateBlacklist _entityBlacklist = new EntityLocateBlacklist();
 
@@ -54,21 +82,27 @@ public class EntityTracker extends Tracker {
 
         // Listen for player collisions
         EventBus.subscribe(PlayerCollidedWithEntityEvent.class, evt -> registerPlayerCollision(evt.player, evt.other));
+        // Keep up with entities as they come and go, instead of going through all of them every tick.
+        EventBus.subscribe(EntityAddedEvent.class, evt -> onEntityAdded(evt.entity));
+        EventBus.subscribe(EntityRemovedEvent.class, evt -> onEntityRemoved(evt.entity));
+
+        // Types asked about as a whole rather than one class at a time.
+        registerSupertype(PlayerEntity.class);
+        registerSupertype(MobEntity.class);
+        registerSupertype(HostileEntity.class);
+        registerSupertype(Monster.class);
+        registerSupertype(ProjectileEntity.class);
     }
 
     /**
-     * Squash a class that may have sub classes into one distinguishable class type.
-     * For ease of use.
-     *
-     * @param type: An entity class that may have a 'simpler' class to squash to
-     * @return what the given entity class should be read as/catalogued as.
+     * From now on, looking for `type` (in {@link #getTrackedEntities}, {@link #entityFound}, {@link #getClosestEntity}...)
+     * finds every entity that is one, subclasses and implementations included.
+     * Other types only find entities of exactly that class.
      */
-    private static Class squashType(Class type) {
-        // Squash types for ease of use
-        if (PlayerEntity.class.isAssignableFrom(type)) {
-            return PlayerEntity.class;
+    public void registerSupertype(Class type) {
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            _entities.registerSupertype(type);
         }
-        return type;
     }
 
     private void registerPlayerCollision(PlayerEntity player, Entity entity) {
@@ -112,7 +146,7 @@ public class EntityTracker extends Tracker {
     }
 
     public Optional<ItemEntity> getClosestItemDrop(Vec3d position, Predicate<ItemEntity> acceptPredicate, ItemTarget... targets) {
-        ensureUpdated();
+        ensureUpdated(_itemDrops);
         if (targets.length == 0) {
             Debug.logError("You asked for the drop position of zero items... Most likely a typo.");
             return Optional.empty();
@@ -121,21 +155,32 @@ public class EntityTracker extends Tracker {
             return Optional.empty();
         }
 
-        ItemEntity closestEntity = null;
-        float minCost = Float.POSITIVE_INFINITY;
+        Set<Item> items = new HashSet<>();
+        int candidates = 0;
         for (ItemTarget target : targets) {
             for (Item item : target.getMatches()) {
-                if (!itemDropped(item)) continue;
-                for (ItemEntity entity : _itemDropLocations.get(item)) {
-                    if (_entityBlacklist.unreachable(entity)) continue;
-                    if (!entity.getStack().getItem().equals(item)) continue;
-                    if (!acceptPredicate.test(entity)) continue;
+                if (items.add(item) && _itemDropLocations.containsKey(item)) {
+                    candidates += _itemDropLocations.get(item).size();
+                }
+            }
+        }
+        Predicate<ItemEntity> accept = entity -> !_entityBlacklist.unreachable(entity) && items.contains(entity.getStack().getItem()) && acceptPredicate.test(entity);
 
-                    float cost = (float) BaritoneHelper.calculateGenericHeuristic(position, entity.getPos());
-                    if (cost < minCost) {
-                        minCost = cost;
-                        closestEntity = entity;
-                    }
+        // Lots of drops around (farms, bases), walk outward instead of checking them all.
+        if (candidates > GRID_QUERY_THRESHOLD) {
+            return Optional.ofNullable(_itemDropGrid.getClosest(position, DistanceMetric.BARITONE_HEURISTIC, accept, Double.POSITIVE_INFINITY));
+        }
+
+        ItemEntity closestEntity = null;
+        double minCost = Double.POSITIVE_INFINITY;
+        for (Item item : items) {
+            if (!_itemDropLocations.containsKey(item)) continue;
+            for (ItemEntity entity : _itemDropLocations.get(item)) {
+                if (!accept.test(entity)) continue;
+                double cost = DistanceMetric.BARITONE_HEURISTIC.score(position, entity.getPos());
+                if (cost < minCost) {
+                    minCost = cost;
+                    closestEntity = entity;
                 }
             }
         }
@@ -155,30 +200,58 @@ public class EntityTracker extends Tracker {
     }
 
     public Optional<Entity> getClosestEntity(Vec3d position, Predicate<Entity> acceptPredicate, Class... entityTypes) {
-        Entity closestEntity = null;
-        double minCost = Float.POSITIVE_INFINITY;
-        for (Class toFind : entityTypes) {
-            synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-                if (_entityMap.containsKey(toFind)) {
-                    for (Entity entity : _entityMap.get(toFind)) {
-                        // Don't accept entities that no longer exist
-                        if (_entityBlacklist.unreachable(entity)) continue;
-                        if (!entity.isAlive()) continue;
-                        if (!acceptPredicate.test(entity)) continue;
-                        double cost = entity.squaredDistanceTo(position);
-                        if (cost < minCost) {
-                            minCost = cost;
-                            closestEntity = entity;
-                        }
+        return getClosestEntity(position, Double.POSITIVE_INFINITY, acceptPredicate, entityTypes);
+    }
+
+    /**
+     * Gets the closest entity of some types that's closer than `maxDistance`.
+     */
+    public Optional<Entity> getClosestEntity(Vec3d position, double maxDistance, Predicate<Entity> acceptPredicate, Class... entityTypes) {
+        ensureUpdated();
+        double maxScore = Double.isInfinite(maxDistance) ? Double.POSITIVE_INFINITY : maxDistance * maxDistance;
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            Set<Class> types = new HashSet<>(Arrays.asList(entityTypes));
+            int candidates = 0;
+            for (Class type : types) {
+                candidates += _entities.count(type);
+            }
+            // Don't accept entities that no longer exist
+            Predicate<Entity> accept = entity -> !_entityBlacklist.unreachable(entity) && entity.isAlive() && acceptPredicate.test(entity);
+
+            if (candidates > GRID_QUERY_THRESHOLD) {
+                _positions.ensureUpdated();
+                Entity closest = _entityGrid.getClosest(position, DistanceMetric.SQUARED_DISTANCE,
+                        entity -> _entities.isAnyOf(entity, types) && accept.test(entity), maxScore);
+                return Optional.ofNullable(closest);
+            }
+
+            Entity closestEntity = null;
+            double minCost = maxScore;
+            for (Class toFind : types) {
+                for (Entity entity : _entities.get(toFind)) {
+                    double cost = entity.squaredDistanceTo(position);
+                    if (cost < minCost && accept.test(entity)) {
+                        minCost = cost;
+                        closestEntity = entity;
                     }
                 }
             }
+            return Optional.ofNullable(closestEntity);
+        }
+    }
+
+    /**
+     * Gets every tracked entity closer than `range` to a position that passes a filter.
+     */
+    public List<Entity> getEntitiesWithinRange(Vec3d position, double range, Predicate<Entity> acceptPredicate) {
+        ensureUpdated(_positions);
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            return _entityGrid.getWithinRange(position, range, entity -> entity.isAlive() && acceptPredicate.test(entity));
         }
-        return Optional.ofNullable(closestEntity);
     }
 
     public boolean itemDropped(Item... items) {
-        ensureUpdated();
+        ensureUpdated(_itemDrops);
         for (Item item : items) {
             if (_itemDropLocations.containsKey(item)) {
                 // Find a non-blacklisted item
@@ -199,7 +272,7 @@ public class EntityTracker extends Tracker {
     }
 
     public List<ItemEntity> getDroppedItems() {
-        ensureUpdated();
+        ensureUpdated(_itemDrops);
         return _itemDropLocations.values().stream().reduce(new ArrayList<>(), (result, drops) -> {
             result.addAll(drops);
             return result;
@@ -210,8 +283,8 @@ public class EntityTracker extends Tracker {
         ensureUpdated();
         for (Class type : types) {
             synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-                for (Entity entity : _entityMap.getOrDefault(type, Collections.emptyList())) {
-                    if (shouldAccept.test(entity))
+                for (Entity entity : _entities.get(type)) {
+                    if (entity.isAlive() && shouldAccept.test(entity))
                         return true;
                 }
             }
@@ -223,14 +296,25 @@ public class EntityTracker extends Tracker {
         return entityFound(check -> true, types);
     }
 
+    /**
+     * @param type An exact entity class, or a supertype registered with {@link #registerSupertype}
+     */
     public <T extends Entity> List<T> getTrackedEntities(Class<T> type) {
         ensureUpdated();
         if (!entityFound(type)) {
             return Collections.emptyList();
         }
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            //noinspection unchecked
-            return (List<T>) _entityMap.get(type);
+            List<Entity> entities = _entities.get(type);
+            List<T> result = new ArrayList<>(entities.size());
+            for (Entity entity : entities) {
+                // Dead mobs hang around for their death animation.
+                if (entity.isAlive()) {
+                    //noinspection unchecked
+                    result.add((T) entity);
+                }
+            }
+            return result;
         }
     }
 
@@ -238,7 +322,7 @@ public class EntityTracker extends Tracker {
      * Gets all entities that are within our interact range
      */
     public List<Entity> getCloseEntities() {
-        ensureUpdated();
+        ensureUpdated(_positions);
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             return _closeEntities;
         }
@@ -248,14 +332,14 @@ public class EntityTracker extends Tracker {
      * Gets a list of projectiles that we've cached/stored information about.
      */
     public List<CachedProjectile> getProjectiles() {
-        ensureUpdated();
+        ensureUpdated(_projectileCategory);
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             return _projectiles;
         }
     }
 
     public List<Entity> getHostiles() {
-        ensureUpdated();
+        ensureUpdated(_hostileCategory);
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             return _hostiles;
         }
@@ -281,7 +365,33 @@ public class EntityTracker extends Tracker {
     public Optional<Vec3d> getPlayerMostRecentPosition(String name) {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            return Optional.ofNullable(_playerLastCoordinates.getOrDefault(name, null));
+            return _playerHistory.getLastPosition(name);
+        }
+    }
+
+    /**
+     * How fast a player was moving when we last saw them, in blocks per tick.
+     *
+     * @param name Username on a multiplayer server.
+     */
+    public Optional<Vec3d> getPlayerVelocity(String name) {
+        ensureUpdated();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            return _playerHistory.getVelocity(name);
+        }
+    }
+
+    /**
+     * Guess where a player will be a little while from now, if they keep moving the way they were.
+     * If they're out of sight, this is where they were headed.
+     *
+     * @param name       Username on a multiplayer server.
+     * @param ticksAhead How far ahead to look. Predictions stop a couple seconds after we last saw them.
+     */
+    public Optional<Vec3d> getPlayerPredictedPosition(String name, double ticksAhead) {
+        ensureUpdated();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            return _playerHistory.predict(name, _currentTick, ticksAhead);
         }
     }
 
@@ -313,96 +423,195 @@ public class EntityTracker extends Tracker {
         return !_entityBlacklist.unreachable(entity);
     }
 
-    @Override
-    protected synchronized void updateState() {
+    private void onEntityAdded(Entity entity) {
+        // Don't catalogue our own player.
+        if (entity instanceof ClientPlayerEntity) return;
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            _itemDropLocations.clear();
-            _entityMap.clear();
-            _closeEntities.clear();
-            _projectiles.clear();
-            _hostiles.clear();
-            _playerMap.clear();
-            if (MinecraftClient.getInstance().world == null) return;
+            // Catalogue based on type, and every registered supertype.
+            _entities.add(entity);
+            if (entity instanceof PlayerEntity player) {
+                _playerMap.put(player.getName().getString(), player);
+            }
+        }
+    }
 
-            // Store/Register All accumulated player collisions for this frame.
-            _entitiesCollidingWithPlayer.clear();
-            for (Map.Entry<PlayerEntity, List<Entity>> collisions : _entitiesCollidingWithPlayerAccumulator.entrySet()) {
-                _entitiesCollidingWithPlayer.put(collisions.getKey(), new HashSet<>());
-                _entitiesCollidingWithPlayer.get(collisions.getKey()).addAll(collisions.getValue());
+    private void onEntityRemoved(Entity entity) {
+        if (entity instanceof ClientPlayerEntity) return;
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            _entities.remove(entity);
+            if (entity instanceof PlayerEntity player) {
+                String name = player.getName().getString();
+                if (_playerMap.remove(name, player)) {
+                    // They're leaving, so this is the last we'll see of them.
+                    _playerHistory.record(name, player.getPos(), player.getWorld().getTime());
+                }
             }
-            _entitiesCollidingWithPlayerAccumulator.clear();
+        }
+    }
 
-            // Loop through all entities and track 'em
-            for (Entity entity : MinecraftClient.getInstance().world.getEntities()) {
+    private void clearTrackedEntities() {
+        _entities.clear();
+        _playerMap.clear();
+        _trackedWorld = null;
+    }
 
-                // Catalogue based on type. Some types may get "squashed" or combined into one.
-                Class type = entity.getClass();
-                type = squashType(type);
+    /**
+     * Computes a category if it hasn't been this tick.
+     */
+    private void ensureUpdated(LazyCategory category) {
+        ensureUpdated();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            category.ensureUpdated();
+        }
+    }
 
-                //noinspection ConstantConditions
-                if (entity == null || !entity.isAlive()) continue;
+    /**
+     * How often each category was needed, and what it cost.
+     */
+    public List<String> getCategoryStats() {
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            return _categories.stream().map(LazyCategory::toString).toList();
+        }
+    }
 
-                // Don't catalogue our own player.
-                if (type == PlayerEntity.class && entity.equals(_mod.getPlayer())) continue;
+    public void resetCategoryStats() {
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            _categories.forEach(LazyCategory::resetStats);
+        }
+    }
 
-                if (!_entityMap.containsKey(type)) {
-                    _entityMap.put(type, new ArrayList<>());
-                }
-                _entityMap.get(type).add(entity);
+    /**
+     * Every entity we're tracking, alive or not. For snapshots, hold the lock while reading.
+     */
+    List<Entity> getAllTracked() {
+        ensureUpdated();
+        return _entities.getAll();
+    }
 
-                if (_mod.getControllerExtras().inRange(entity)) {
-                    _closeEntities.add(entity);
-                }
+    private boolean inWorld() {
+        return MinecraftClient.getInstance().world != null && _mod.getPlayer() != null;
+    }
 
-                if (entity instanceof ItemEntity ientity) {
-                    Item droppedItem = ientity.getStack().getItem();
+    private void updatePositions() {
+        _entityGrid.clear();
+        _closeEntities.clear();
+        if (!inWorld()) return;
+
+        // Everything moves, so the grid is rebuilt.
+        for (Entity entity : _entities.getAll()) {
+            if (!entity.isAlive()) continue;
+            _entityGrid.add(entity);
+            if (_mod.getControllerExtras().inRange(entity)) {
+                _closeEntities.add(entity);
+            }
+        }
+    }
 
-                    // Only cared about GROUNDED item entities
-                    if (ientity.isOnGround() || ientity.isTouchingWater() || WorldHelper.isSolid(_mod, ientity.getBlockPos().down(2)) || WorldHelper.isSolid(_mod, ientity.getBlockPos().down(3))) {
-                        if (!_itemDropLocations.containsKey(droppedItem)) {
-                            _itemDropLocations.put(droppedItem, new ArrayList<>());
-                        }
-                        _itemDropLocations.get(droppedItem).add(ientity);
-                    }
+    private void updateHostiles() {
+        _hostiles.clear();
+        if (!inWorld()) return;
+        for (Entity entity : _entities.get(MobEntity.class)) {
+            // Check if the mob is close enough
+            if (entity.isAlive() && entity.isInRange(_mod.getPlayer(), 16) && EntityHelper.isAngryAtPlayer(_mod, entity)) {
+                _hostiles.add(entity);
+            }
+        }
+    }
+
+    private void updateItemDrops() {
+        _itemDropLocations.clear();
+        _itemDropGrid.clear();
+        if (!inWorld()) return;
+        for (Entity entity : _entities.get(ItemEntity.class)) {
+            if (!(entity instanceof ItemEntity ientity) || !ientity.isAlive()) continue;
+            Item droppedItem = ientity.getStack().getItem();
+
+            // Only cared about GROUNDED item entities
+            if (ientity.isOnGround() || ientity.isTouchingWater() || WorldHelper.isSolid(_mod, ientity.getBlockPos().down(2)) || WorldHelper.isSolid(_mod, ientity.getBlockPos().down(3))) {
+                if (!_itemDropLocations.containsKey(droppedItem)) {
+                    _itemDropLocations.put(droppedItem, new ArrayList<>());
                 }
-                if (entity instanceof MobEntity) {
-                    if (EntityHelper.isAngryAtPlayer(_mod, entity)) {
+                _itemDropLocations.get(droppedItem).add(ientity);
+                _itemDropGrid.add(ientity);
+            }
+        }
+    }
 
-                        // Check if the mob is facing us or is close enough
-                        boolean closeEnough = entity.isInRange(_mod.getPlayer(), 16);
+    private void updateProjectiles() {
+        _projectiles.clear();
+        if (!inWorld()) return;
+        for (Entity entity : _entities.get(ProjectileEntity.class)) {
+            if (!(entity instanceof ProjectileEntity projEntity) || !projEntity.isAlive()) continue;
+            if (_mod.getBehaviour().shouldAvoidDodgingProjectile(projEntity)) continue;
+            // Ignore some of the harlmess projectiles
+            if (projEntity instanceof FishingBobberEntity || projEntity instanceof EnderPearlEntity || projEntity instanceof ExperienceBottleEntity)
+                continue;
+
+            boolean inGround = false;
+            // Get projectile "inGround" variable
+            if (projEntity instanceof PersistentProjectileEntity) {
+                inGround = ((PersistentProjectileEntityAccessor) projEntity).isInGround();
+            }
+            if (!inGround) {
+                CachedProjectile proj = new CachedProjectile();
+                proj.position = projEntity.getPos();
+                proj.velocity = projEntity.getVelocity();
+                proj.gravity = ProjectileHelper.hasGravity(projEntity) ? ProjectileHelper.ARROW_GRAVITY_ACCEL : 0;
+                proj.projectileType = projEntity.getClass();
+                _projectiles.add(proj);
+            }
+        }
+    }
 
-                        //Debug.logInternal("TARGET: " + hostile.is);
-                        if (closeEnough) {
-                            _hostiles.add(entity);
-                        }
-                    }
-                } else if (entity instanceof ProjectileEntity projEntity) {
-                    if (!_mod.getBehaviour().shouldAvoidDodgingProjectile(entity)) {
-                        CachedProjectile proj = new CachedProjectile();
-
-                        boolean inGround = false;
-                        // Get projectile "inGround" variable
-                        if (entity instanceof PersistentProjectileEntity) {
-                            inGround = ((PersistentProjectileEntityAccessor) entity).isInGround();
-                        }
-
-                        // Ignore some of the harlmess projectiles
-                        if (projEntity instanceof FishingBobberEntity || projEntity instanceof EnderPearlEntity || projEntity instanceof ExperienceBottleEntity)
-                            continue;
-
-                        if (!inGround) {
-                            proj.position = projEntity.getPos();
-                            proj.velocity = projEntity.getVelocity();
-                            proj.gravity = ProjectileHelper.hasGravity(projEntity) ? ProjectileHelper.ARROW_GRAVITY_ACCEL : 0;
-                            proj.projectileType = projEntity.getClass();
-                            _projectiles.add(proj);
-                        }
-                    }
-                } else if (entity instanceof PlayerEntity player) {
-                    String name = player.getName().getString();
-                    _playerMap.put(name, player);
-                    _playerLastCoordinates.put(name, player.getPos());
-                }
+    @Override
+    protected synchronized void updateState() {
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            // Nothing position dependent is worked out until someone asks for it.
+            for (LazyCategory category : _categories) {
+                category.setDirty();
+            }
+            ClientWorld world = MinecraftClient.getInstance().world;
+            if (world == null || _mod.getPlayer() == null) return;
+            syncWorld(world);
+
+            // Store/Register All accumulated player collisions for this frame.
+            _entitiesCollidingWithPlayer.clear();
+            for (Map.Entry<PlayerEntity, List<Entity>> collisions : _entitiesCollidingWithPlayerAccumulator.entrySet()) {
+                _entitiesCollidingWithPlayer.put(collisions.getKey(), new HashSet<>());
+                _entitiesCollidingWithPlayer.get(collisions.getKey()).addAll(collisions.getValue());
+            }
+            _entitiesCollidingWithPlayerAccumulator.clear();
+
+            _entityBlacklist.sweep();
+        }
+    }
+
+    /**
+     * Records where every player is. Called every tick whether or not anyone asked us for anything,
+     * a gap in the samples would throw off velocities.
+     */
+    void samplePlayers() {
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            ClientWorld world = MinecraftClient.getInstance().world;
+            if (world == null || _mod.getPlayer() == null) return;
+            syncWorld(world);
+            _currentTick = world.getTime();
+            for (Map.Entry<String, PlayerEntity> player : _playerMap.entrySet()) {
+                _playerHistory.record(player.getKey(), player.getValue().getPos(), _currentTick);
+            }
+            _playerHistory.sweep(_currentTick);
+        }
+    }
+
+    private void syncWorld(ClientWorld world) {
+        // New world, nobody told us about what's already in it.
+        if (world != _trackedWorld) {
+            clearTrackedEntities();
+            // Positions from another dimension would only send us the wrong way.
+            _playerHistory.clear();
+            _trackedWorld = world;
+            for (Entity entity : world.getEntities()) {
+                onEntityAdded(entity);
             }
         }
     }
@@ -411,5 +620,9 @@ public class EntityTracker extends Tracker {
     protected void reset() {
         // Dirty clears everything else.
         _entityBlacklist.clear();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            clearTrackedEntities();
+            _playerHistory.clear();
+        }
     }
 }
@@ -0,0 +1,174 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.collections.Long2IntHashMap;
+import net.minecraft.entity.Entity;
+
+import java.util.*;
+
+/**
+ * Files entities under their own class and under every registered supertype (class or interface) they belong to,
+ * so asking for all {@link net.minecraft.entity.mob.HostileEntity}s costs as much as there are hostiles.
+ * <p>
+ * Which lists an entity class goes into is worked out once per class and cached, no reflection per entity or query.
+ * Classes that aren't registered are matched exactly, so asking for {@code ZombieEntity} won't hand back husks.
+ * <p>
+ * Not thread safe.
+ */
+@SuppressWarnings("rawtypes")
+class EntityTypeIndex {
+
+    private final Set<Class> _supertypes = new HashSet<>();
+    // Entity class -> every key it's filed under. Cleared whenever a supertype is registered.
+    private final HashMap<Class, Class[]> _keys = new HashMap<>();
+    private final HashMap<Class, EntityList> _lists = new HashMap<>();
+    private final EntityList _all = new EntityList();
+
+    /**
+     * From now on, asking for `type` gives every entity that is one (subclasses and implementations included).
+     */
+    public void registerSupertype(Class type) {
+        if (!_supertypes.add(type)) return;
+        _keys.clear();
+        // The list for the exact class (if we had one) is a subset of this, so start over.
+        _lists.remove(type);
+        for (Entity entity : _all) {
+            if (type.isInstance(entity)) {
+                getOrCreate(type).add(entity);
+            }
+        }
+    }
+
+    public boolean isSupertype(Class type) {
+        return _supertypes.contains(type);
+    }
+
+    public void add(Entity entity) {
+        _all.add(entity);
+        for (Class key : keysOf(entity.getClass())) {
+            getOrCreate(key).add(entity);
+        }
+    }
+
+    public void remove(Entity entity) {
+        _all.remove(entity);
+        for (Class key : keysOf(entity.getClass())) {
+            EntityList list = _lists.get(key);
+            if (list == null) continue;
+            list.remove(entity);
+            if (list.isEmpty()) {
+                _lists.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        _all.clear();
+        _lists.clear();
+    }
+
+    /**
+     * @return Every entity filed under `type`, as a read only view that changes as entities come and go.
+     */
+    public List<Entity> get(Class type) {
+        EntityList list = _lists.get(type);
+        return list == null ? Collections.emptyList() : list.view();
+    }
+
+    public List<Entity> getAll() {
+        return _all.view();
+    }
+
+    public int count(Class type) {
+        EntityList list = _lists.get(type);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * @return Whether asking for any of `types` would give back this entity.
+     */
+    public boolean isAnyOf(Entity entity, Set<Class> types) {
+        for (Class key : keysOf(entity.getClass())) {
+            if (types.contains(key)) return true;
+        }
+        return false;
+    }
+
+    private Class[] keysOf(Class type) {
+        Class[] keys = _keys.get(type);
+        if (keys == null) {
+            Set<Class> result = new LinkedHashSet<>();
+            result.add(type);
+            for (Class supertype : _supertypes) {
+                if (supertype.isAssignableFrom(type)) {
+                    result.add(supertype);
+                }
+            }
+            keys = result.toArray(new Class[0]);
+            _keys.put(type, keys);
+        }
+        return keys;
+    }
+
+    private EntityList getOrCreate(Class key) {
+        EntityList list = _lists.get(key);
+        if (list == null) {
+            list = new EntityList();
+            _lists.put(key, list);
+        }
+        return list;
+    }
+
+    /**
+     * A list we can remove entities from without searching it, by remembering where each one is (by entity id).
+     * Removing swaps the last entity into the gap, so the order isn't kept.
+     */
+    private static class EntityList implements Iterable<Entity> {
+        private final List<Entity> _entities = new ArrayList<>();
+        private final List<Entity> _view = Collections.unmodifiableList(_entities);
+        private final Long2IntHashMap _indices = new Long2IntHashMap();
+
+        public void add(Entity entity) {
+            int index = _indices.get(entity.getId(), -1);
+            if (index != -1) {
+                // Same id, the server replaced it without telling us it was gone.
+                _entities.set(index, entity);
+                return;
+            }
+            _indices.put(entity.getId(), _entities.size(), -1);
+            _entities.add(entity);
+        }
+
+        public void remove(Entity entity) {
+            int index = _indices.get(entity.getId(), -1);
+            if (index == -1 || _entities.get(index) != entity) return;
+            _indices.remove(entity.getId());
+            Entity last = _entities.remove(_entities.size() - 1);
+            if (last != entity) {
+                _entities.set(index, last);
+                _indices.put(last.getId(), index, -1);
+            }
+        }
+
+        public int size() {
+            return _entities.size();
+        }
+
+        public boolean isEmpty() {
+            return _entities.isEmpty();
+        }
+
+        public void clear() {
+            _entities.clear();
+            _indices.clear();
+        }
+
+        public List<Entity> view() {
+            return _view;
+        }
+
+        @Override
+        public Iterator<Entity> iterator() {
+            return _entities.iterator();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.helpers.HarnessHelper;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.mob.HostileEntity;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.entity.mob.ZombieEntity;
+import net.minecraft.entity.passive.CowEntity;
+import net.minecraft.entity.projectile.ProjectileEntity;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares keeping {@link EntityTypeIndex} up to date as entities come and go with rebuilding the per type lists
+ * from every entity each tick, the way {@link EntityTracker} used to.
+ * <p>
+ * Each simulated tick a few entities leave and new ones arrive. Both have to end up filing the same entities under
+ * the same types, then they're timed at 500 and 5000 entities.
+ * <p>
+ * Entities are made (never spawned) in the world we're in, so run it in game (`@test entityindex`).
+ */
+@SuppressWarnings("rawtypes")
+public class EntityTypeIndexTest {
+
+    private static final HarnessHelper HARNESS = new HarnessHelper("EntityTypeIndex");
+    private static final EntityType[] TYPES = {EntityType.ZOMBIE, EntityType.SKELETON, EntityType.CREEPER, EntityType.COW, EntityType.PIG, EntityType.ARROW, EntityType.SNOWBALL};
+    private static final Class[] SUPERTYPES = {MobEntity.class, HostileEntity.class, ProjectileEntity.class};
+    // Asked about in the checks. Supertypes, plus exact classes.
+    private static final Class[] QUERIED = {MobEntity.class, HostileEntity.class, ProjectileEntity.class, ZombieEntity.class, CowEntity.class};
+    private static final int TICKS = 200;
+
+    public static void test(World world) {
+        Random random = new Random(7);
+        for (int count : new int[]{500, 5000}) {
+            List<Entity> entities = new ArrayList<>();
+            EntityTypeIndex index = new EntityTypeIndex();
+            for (Class type : SUPERTYPES) {
+                index.registerSupertype(type);
+            }
+            for (int i = 0; i < count; ++i) {
+                Entity entity = create(world, random);
+                entities.add(entity);
+                index.add(entity);
+            }
+            // A percent of everything comes and goes every tick, plenty for a busy area.
+            int churn = Math.max(1, count / 100);
+
+            long rebuildNanos = 0, incrementalNanos = 0;
+            for (int tick = 0; tick < TICKS; ++tick) {
+                List<Entity> removed = new ArrayList<>(churn);
+                List<Entity> added = new ArrayList<>(churn);
+                for (int i = 0; i < churn; ++i) {
+                    removed.add(entities.remove(random.nextInt(entities.size())));
+                    Entity entity = create(world, random);
+                    added.add(entity);
+                    entities.add(entity);
+                }
+
+                long start = System.nanoTime();
+                Map<Class, List<Entity>> rebuilt = rebuild(entities);
+                rebuildNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Entity entity : removed) {
+                    index.remove(entity);
+                }
+                for (Entity entity : added) {
+                    index.add(entity);
+                }
+                incrementalNanos += System.nanoTime() - start;
+
+                if (tick % 20 == 0) {
+                    checkSame(index, rebuilt, entities);
+                }
+            }
+            checkSame(index, rebuild(entities), entities);
+            // Timed a tick at a time, each one changes what the next sees. The first size doubles as warm up.
+            HARNESS.log("%d entities (%d in/out per tick), rebuild %.1fus vs incremental %.1fus per tick",
+                    count, churn, rebuildNanos / 1000.0 / TICKS, incrementalNanos / 1000.0 / TICKS);
+        }
+        HARNESS.passed();
+    }
+
+    private static Entity create(World world, Random random) {
+        EntityType type = TYPES[random.nextInt(TYPES.length)];
+        Entity entity = type.create(world);
+        HARNESS.check(entity != null, "can make a test entity", type);
+        return entity;
+    }
+
+    // How it used to be done: go through everything, filing each entity under its class (and, now, its supertypes).
+    private static Map<Class, List<Entity>> rebuild(List<Entity> entities) {
+        Map<Class, List<Entity>> result = new HashMap<>();
+        for (Entity entity : entities) {
+            result.computeIfAbsent(entity.getClass(), key -> new ArrayList<>()).add(entity);
+            for (Class type : SUPERTYPES) {
+                if (type.isInstance(entity)) {
+                    result.computeIfAbsent(type, key -> new ArrayList<>()).add(entity);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void checkSame(EntityTypeIndex index, Map<Class, List<Entity>> rebuilt, List<Entity> entities) {
+        for (Class type : QUERIED) {
+            HashSet<Entity> expected = new HashSet<>(rebuilt.getOrDefault(type, List.of()));
+            HashSet<Entity> actual = new HashSet<>(index.get(type));
+            HARNESS.check(expected.equals(actual), "index files the same entities under " + type.getSimpleName(), actual.size() + " vs " + expected.size());
+            HARNESS.check(index.count(type) == expected.size(), "index counts " + type.getSimpleName() + " right", index.count(type));
+        }
+        HARNESS.check(new HashSet<>(index.getAll()).equals(new HashSet<>(entities)) && index.getAll().size() == entities.size(), "index has every entity once", index.getAll().size());
+    }
+}
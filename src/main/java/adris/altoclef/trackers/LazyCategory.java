@@ -0,0 +1,57 @@
+package adris.altoclef.trackers;
+
+/**
+ * One part of a tracker's state that's only worked out when someone asks for it, at most once per tick.
+ * <p>
+ * Counts how many ticks it was needed on and how long working it out took, so we can see what skipping it saves.
+ */
+class LazyCategory {
+
+    private final String _name;
+    private final Runnable _compute;
+    private boolean _dirty = true;
+
+    private long _ticks;
+    private long _computed;
+    private long _totalNanos;
+    private long _maxNanos;
+
+    public LazyCategory(String name, Runnable compute) {
+        _name = name;
+        _compute = compute;
+    }
+
+    /**
+     * Call once per tick.
+     */
+    public void setDirty() {
+        _dirty = true;
+        _ticks++;
+    }
+
+    public void ensureUpdated() {
+        if (!_dirty) return;
+        // Before computing, so a query made while computing doesn't compute again.
+        _dirty = false;
+        long start = System.nanoTime();
+        _compute.run();
+        long nanos = System.nanoTime() - start;
+        _computed++;
+        _totalNanos += nanos;
+        _maxNanos = Math.max(_maxNanos, nanos);
+    }
+
+    public void resetStats() {
+        _ticks = 0;
+        _computed = 0;
+        _totalNanos = 0;
+        _maxNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        double averageMicros = _computed == 0 ? 0 : _totalNanos / 1000.0 / _computed;
+        return String.format("%s: computed on %d/%d ticks, avg %.1fus, max %.1fus, total %.1fms",
+                _name, _computed, _ticks, averageMicros, _maxNanos / 1000.0, _totalNanos / 1e6);
+    }
+}
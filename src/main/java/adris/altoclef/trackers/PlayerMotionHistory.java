@@ -0,0 +1,146 @@
+package adris.altoclef.trackers;
+
+import net.minecraft.util.math.Vec3d;
+
+import java.util.*;
+
+/**
+ * The last second or so of where each player was, so we can tell where they're heading and not just where they were.
+ * <p>
+ * Every player gets a fixed size ring of timestamped (game tick) positions. Players we haven't seen for a while are
+ * forgotten, and we never keep more than {@link #MAX_PLAYERS}, dropping whoever we saw least recently.
+ * <p>
+ * Not thread safe.
+ */
+class PlayerMotionHistory {
+
+    private static final int SAMPLES = 20;
+    // Velocity is fit over samples at most this old (relative to the newest one).
+    private static final long VELOCITY_WINDOW_TICKS = 10;
+    // Never extrapolate further than this past the last time we saw someone.
+    private static final long MAX_PREDICTION_TICKS = 40;
+    private static final long FORGET_AFTER_TICKS = 20 * 60 * 5;
+    private static final int MAX_PLAYERS = 64;
+
+    private final HashMap<String, Track> _tracks = new HashMap<>();
+
+    public void record(String name, Vec3d position, long tick) {
+        Track track = _tracks.get(name);
+        if (track == null) {
+            if (_tracks.size() >= MAX_PLAYERS) {
+                forgetLeastRecent();
+            }
+            track = new Track();
+            _tracks.put(name, track);
+        }
+        track.add(position, tick);
+    }
+
+    /**
+     * Forgets players we haven't seen in a while.
+     */
+    public void sweep(long tick) {
+        _tracks.values().removeIf(track -> tick - track.lastTick() > FORGET_AFTER_TICKS);
+    }
+
+    public Optional<Vec3d> getLastPosition(String name) {
+        Track track = _tracks.get(name);
+        return track == null ? Optional.empty() : Optional.of(track.last());
+    }
+
+    /**
+     * @return Blocks per tick, fit over the last few samples. Zero if we only saw them once.
+     */
+    public Optional<Vec3d> getVelocity(String name) {
+        Track track = _tracks.get(name);
+        return track == null ? Optional.empty() : Optional.of(track.velocity());
+    }
+
+    /**
+     * Where a player will be `ticksAhead` ticks after `tick`, assuming they keep going the way they were.
+     * Only horizontal movement is extrapolated (jumps and falls don't carry on), and never more than
+     * {@link #MAX_PREDICTION_TICKS} past when we last saw them.
+     */
+    public Optional<Vec3d> predict(String name, long tick, double ticksAhead) {
+        Track track = _tracks.get(name);
+        if (track == null) return Optional.empty();
+        Vec3d last = track.last();
+        Vec3d velocity = track.velocity();
+        double time = Math.min(Math.max(0, tick - track.lastTick()) + ticksAhead, MAX_PREDICTION_TICKS);
+        return Optional.of(new Vec3d(last.x + velocity.x * time, last.y, last.z + velocity.z * time));
+    }
+
+    public void clear() {
+        _tracks.clear();
+    }
+
+    private void forgetLeastRecent() {
+        String oldest = null;
+        long oldestTick = Long.MAX_VALUE;
+        for (Map.Entry<String, Track> entry : _tracks.entrySet()) {
+            if (entry.getValue().lastTick() < oldestTick) {
+                oldestTick = entry.getValue().lastTick();
+                oldest = entry.getKey();
+            }
+        }
+        _tracks.remove(oldest);
+    }
+
+    private static class Track {
+        private final double[] _x = new double[SAMPLES], _y = new double[SAMPLES], _z = new double[SAMPLES];
+        private final long[] _ticks = new long[SAMPLES];
+        // Index of the newest sample.
+        private int _head = -1;
+        private int _count;
+
+        public void add(Vec3d position, long tick) {
+            if (_count > 0 && _ticks[_head] >= tick) {
+                // Same tick (or the clock went back, new world), just overwrite.
+                if (_ticks[_head] > tick) _count = 1;
+            } else {
+                _head = (_head + 1) % SAMPLES;
+                _count = Math.min(_count + 1, SAMPLES);
+            }
+            _x[_head] = position.x;
+            _y[_head] = position.y;
+            _z[_head] = position.z;
+            _ticks[_head] = tick;
+        }
+
+        public long lastTick() {
+            return _ticks[_head];
+        }
+
+        public Vec3d last() {
+            return new Vec3d(_x[_head], _y[_head], _z[_head]);
+        }
+
+        // Least squares slope of position over time, which doesn't mind the odd missed or jittery tick.
+        public Vec3d velocity() {
+            long newest = _ticks[_head];
+            int n = 0;
+            double sumT = 0, sumTT = 0, sumX = 0, sumY = 0, sumZ = 0, sumTX = 0, sumTY = 0, sumTZ = 0;
+            for (int i = 0; i < _count; ++i) {
+                int index = Math.floorMod(_head - i, SAMPLES);
+                double t = _ticks[index] - newest;
+                if (-t > VELOCITY_WINDOW_TICKS) break;
+                n++;
+                sumT += t;
+                sumTT += t * t;
+                sumX += _x[index];
+                sumY += _y[index];
+                sumZ += _z[index];
+                sumTX += t * _x[index];
+                sumTY += t * _y[index];
+                sumTZ += t * _z[index];
+            }
+            double denominator = n * sumTT - sumT * sumT;
+            if (n < 2 || denominator == 0) return Vec3d.ZERO;
+            return new Vec3d(
+                    (n * sumTX - sumT * sumX) / denominator,
+                    (n * sumTY - sumT * sumY) / denominator,
+                    (n * sumTZ - sumT * sumZ) / denominator
+            );
+        }
+    }
+}
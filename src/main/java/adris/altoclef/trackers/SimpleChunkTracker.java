@@ -5,7 +5,10 @@ import adris.altoclef.Debug;
 import adris.altoclef.eventbus.EventBus;
 import adris.altoclef.eventbus.events.ChunkLoadEvent;
 import adris.altoclef.eventbus.events.ChunkUnloadEvent;
+import adris.altoclef.trackers.spatial.ChunkSectionScanner;
 import adris.altoclef.util.helpers.WorldHelper;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.EmptyChunk;
@@ -65,6 +68,9 @@ public class SimpleChunkTracker {
     /**
      * Loops through every block in a chunk if it is loaded.
      * If the chunk isn't loaded, it doesn't scan anything.
+     * <p>
+     * This hands out a new BlockPos for every block. If you're looking for specific block states,
+     * {@link #scanChunk(ChunkPos, Predicate, ChunkSectionScanner.Visitor)} is a LOT cheaper.
      *
      * @param chunk       The chunk pos to scan
      * @param onBlockStop Run for every block until it returns true, where it stops scanning.
@@ -73,14 +79,8 @@ public class SimpleChunkTracker {
     public boolean scanChunk(ChunkPos chunk, Predicate<BlockPos> onBlockStop) {
         if (!isChunkLoaded(chunk)) return false;
         //Debug.logInternal("SCANNED CHUNK " + chunk.toString());
-        for (int xx = chunk.getStartX(); xx <= chunk.getEndX(); ++xx) {
-            for (int yy = WorldHelper.WORLD_FLOOR_Y; yy <= WorldHelper.WORLD_CEILING_Y; ++yy) {
-                for (int zz = chunk.getStartZ(); zz <= chunk.getEndZ(); ++zz) {
-                    if (onBlockStop.test(new BlockPos(xx, yy, zz))) return true;
-                }
-            }
-        }
-        return false;
+        return ChunkSectionScanner.scanChunk(_mod.getWorld().getChunk(chunk.x, chunk.z), WorldHelper.WORLD_FLOOR_Y, WorldHelper.WORLD_CEILING_Y, state -> true,
+                (pos, state) -> onBlockStop.test(pos.toImmutable()));
     }
 
     public void scanChunk(ChunkPos chunk, Consumer<BlockPos> onBlock) {
@@ -90,6 +90,27 @@ public class SimpleChunkTracker {
         });
     }
 
+    /**
+     * Loops through every block in a loaded chunk whose state passes `target`,
+     * skipping whole sections that can't contain any such state.
+     *
+     * @param chunk   The chunk pos to scan
+     * @param target  Which block states we're looking for
+     * @param onBlock Run for every matching block until it returns true. The position passed in is reused.
+     * @return whether `onBlock` returned true at any point.
+     */
+    public boolean scanChunk(ChunkPos chunk, Predicate<BlockState> target, ChunkSectionScanner.Visitor onBlock) {
+        if (!isChunkLoaded(chunk)) return false;
+        return ChunkSectionScanner.scanChunk(_mod.getWorld().getChunk(chunk.x, chunk.z), target, onBlock);
+    }
+
+    /**
+     * @return whether a loaded chunk contains any of these blocks.
+     */
+    public boolean chunkContains(ChunkPos chunk, Set<Block> blocks) {
+        return scanChunk(chunk, state -> blocks.contains(state.getBlock()), (pos, state) -> true);
+    }
+
     public void reset(AltoClef mod) {
         Debug.logInternal("CHUNKS RESET");
         _loaded.clear();
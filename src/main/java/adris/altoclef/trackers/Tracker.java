@@ -1,6 +1,10 @@
 package adris.altoclef.trackers;
 
 import adris.altoclef.AltoClef;
+import adris.altoclef.eventbus.EventBus;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class Tracker {
 
@@ -8,12 +12,26 @@ public abstract class Tracker {
     // Needs to update
     private boolean _dirty = true;
 
+    // Trackers we read from, brought up to date before we are.
+    private final List<Tracker> _dependencies = new ArrayList<>();
+    // Trackers that read from us, dirtied whenever we are.
+    private final List<Tracker> _dependents = new ArrayList<>();
+
+    private long _updates;
+    private long _totalUpdateNanos;
+    private long _maxUpdateNanos;
+
     public Tracker(TrackerManager manager) {
         manager.addTracker(this);
     }
 
     public void setDirty() {
+        // Anything dirty already has dirty dependents.
+        if (_dirty) return;
         _dirty = true;
+        for (Tracker dependent : _dependents) {
+            dependent.setDirty();
+        }
     }
 
     // Virtual
@@ -21,13 +39,75 @@ public abstract class Tracker {
         return _dirty;
     }
 
+    /**
+     * Whether this tracker reads world state we get no events for, so has to assume it changed every tick.
+     * Trackers that return false are only updated when an event they listen for ({@link #invalidateOn}) or one of
+     * their dependencies ({@link #dependsOn}) dirties them.
+     */
+    protected boolean isInvalidatedEveryTick() {
+        return true;
+    }
+
+    /**
+     * This tracker reads from `dependencies`. They're brought up to date before this one, and dirtying one of them
+     * dirties this one.
+     */
+    protected void dependsOn(Tracker... dependencies) {
+        for (Tracker dependency : dependencies) {
+            if (dependency == this || dependency.dependsOnTransitively(this)) {
+                throw new IllegalArgumentException(getClass().getSimpleName() + " can't depend on " + dependency.getClass().getSimpleName() + ", it already depends on us.");
+            }
+            _dependencies.add(dependency);
+            dependency._dependents.add(this);
+        }
+        if (_dirty) return;
+        for (Tracker dependency : dependencies) {
+            if (dependency._dirty) {
+                setDirty();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Dirty this tracker whenever an event of this type is published.
+     */
+    protected <T> void invalidateOn(Class<T> eventType) {
+        EventBus.subscribe(eventType, evt -> setDirty());
+    }
+
     protected void ensureUpdated() {
         if (isDirty()) {
+            // Depth first, so everything comes up to date in dependency order.
+            for (Tracker dependency : _dependencies) {
+                dependency.ensureUpdated();
+            }
+            long start = System.nanoTime();
             updateState();
+            long nanos = System.nanoTime() - start;
+            _updates++;
+            _totalUpdateNanos += nanos;
+            _maxUpdateNanos = Math.max(_maxUpdateNanos, nanos);
             _dirty = false;
         }
     }
 
+    /**
+     * How many times this tracker updated and how long it took.
+     */
+    public String getUpdateStats(long ticks) {
+        double averageMicros = _updates == 0 ? 0 : _totalUpdateNanos / 1000.0 / _updates;
+        return String.format("%s: updated %d times in %d ticks, avg %.1fus, max %.1fus, total %.1fms",
+                getClass().getSimpleName(), _updates, ticks, averageMicros, _maxUpdateNanos / 1000.0, _totalUpdateNanos / 1e6);
+    }
+
+    private boolean dependsOnTransitively(Tracker other) {
+        for (Tracker dependency : _dependencies) {
+            if (dependency == other || dependency.dependsOnTransitively(other)) return true;
+        }
+        return false;
+    }
+
     protected abstract void updateState();
 
     protected abstract void reset();
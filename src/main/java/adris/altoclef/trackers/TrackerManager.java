@@ -1,8 +1,10 @@
 package adris.altoclef.trackers;
 
 import adris.altoclef.AltoClef;
+import net.minecraft.client.MinecraftClient;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class TrackerManager {
 
@@ -12,6 +14,16 @@ public class TrackerManager {
 
     private boolean _wasInGame = false;
 
+    private volatile long _ticks;
+
+    // Only captured when someone reads it, capturing brings trackers and categories up to date that might otherwise
+    // skip the tick. Swapped in whole, readers on other threads just grab whichever is current.
+    private volatile WorldSnapshot _snapshot = WorldSnapshot.EMPTY;
+    // Readers on other threads can't capture one themselves, so they leave this and we capture for them next tick.
+    private volatile boolean _snapshotWanted;
+    private long _snapshotCaptures;
+    private long _snapshotCapturesForOthers;
+
     public TrackerManager(AltoClef mod) {
         _mod = mod;
     }
@@ -29,9 +41,72 @@ public class TrackerManager {
         }
         _wasInGame = inGame;
 
+        // Only invalidate what has to be. Dependents get dirtied along with what they depend on,
+        // and nothing actually updates until it's asked for.
+        for (Tracker tracker : _trackers) {
+            if (tracker.isInvalidatedEveryTick()) {
+                tracker.setDirty();
+            }
+        }
+        _ticks++;
+
+        // Motion history can't wait until someone asks, it needs a sample every tick.
+        if (inGame) {
+            _mod.getEntityTracker().samplePlayers();
+        }
+
+        // Someone on another thread read a snapshot last tick, so they'll probably want this one too.
+        if (_snapshotWanted) {
+            _snapshotWanted = false;
+            _snapshotCapturesForOthers++;
+            captureSnapshot();
+        }
+    }
+
+    /**
+     * The world as of this tick. Safe to read from any thread, without the Minecraft lock.
+     * <p>
+     * On the client thread, the first call in a tick captures it. Other threads get the latest one there is (it's
+     * only captured while someone is reading it), so read it once on the client thread first, like when setting up
+     * whatever is going to read it, or it might be old.
+     */
+    public WorldSnapshot getWorldSnapshot() {
+        WorldSnapshot snapshot = _snapshot;
+        if (MinecraftClient.getInstance().isOnThread()) {
+            if (snapshot.getTick() != _ticks && AltoClef.inGame()) {
+                snapshot = captureSnapshot();
+            }
+        } else if (!_snapshotWanted) {
+            _snapshotWanted = true;
+        }
+        return snapshot;
+    }
+
+    /**
+     * How often a world snapshot was captured, and for whom.
+     */
+    public String getSnapshotStats() {
+        return String.format("World snapshot: captured on %d/%d ticks, %d of those for other threads",
+                _snapshotCaptures, _ticks, _snapshotCapturesForOthers);
+    }
+
+    private WorldSnapshot captureSnapshot() {
+        // Built from the last one so unchanged block lists are shared, then published in one write.
+        WorldSnapshot snapshot = WorldSnapshot.capture(_mod, _ticks, _snapshot);
+        _snapshot = snapshot;
+        _snapshotCaptures++;
+        return snapshot;
+    }
+
+    /**
+     * How often each tracker updated and how long that took.
+     */
+    public List<String> getUpdateStats() {
+        List<String> result = new ArrayList<>(_trackers.size());
         for (Tracker tracker : _trackers) {
-            tracker.setDirty();
+            result.add(tracker.getUpdateStats(_ticks));
         }
+        return result;
     }
 
     public void addTracker(Tracker tracker) {
@@ -0,0 +1,235 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.trackers.spatial.SectionBucketIndex;
+import adris.altoclef.util.Dimension;
+import adris.altoclef.util.baritone.CachedProjectile;
+import adris.altoclef.util.helpers.BaritoneHelper;
+import adris.altoclef.util.helpers.WorldHelper;
+import net.minecraft.block.Block;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.item.Item;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the world looked like at the start of one tick, copied out so other threads (pathing goals, planners) can
+ * read it without holding {@link BaritoneHelper#MINECRAFT_LOCK} or racing the client thread.
+ * <p>
+ * Never changes once captured. {@link TrackerManager} captures a new one on ticks where someone asks for it and swaps
+ * it in whole, so a reader holding on to one always sees a consistent tick, even if it's a tick or two old by the
+ * time it's done.
+ * <p>
+ * Entities are kept as parallel arrays instead of entity references, since entities keep changing under us. Block
+ * positions are copied from the block tracker, but only for block types that changed since the last snapshot.
+ */
+public class WorldSnapshot {
+
+    public static final WorldSnapshot EMPTY = new WorldSnapshot();
+
+    private static final long[] NO_POSITIONS = new long[0];
+
+    private final long _tick;
+    private final Dimension _dimension;
+    private final Vec3d _playerPosition;
+    private final Vec3d _playerVelocity;
+    private final float _playerHealth;
+    private final int _playerFood;
+    private final boolean _playerOnGround;
+
+    private final int[] _entityIds;
+    private final Class<?>[] _entityTypes;
+    private final double[] _entityX, _entityY, _entityZ;
+
+    private final List<CachedProjectile> _projectiles;
+    private final Map<Block, BlockPositions> _blocks;
+    private final Map<Item, Integer> _itemCounts;
+
+    private WorldSnapshot() {
+        _tick = -1;
+        _dimension = Dimension.OVERWORLD;
+        _playerPosition = Vec3d.ZERO;
+        _playerVelocity = Vec3d.ZERO;
+        _playerHealth = 0;
+        _playerFood = 0;
+        _playerOnGround = false;
+        _entityIds = new int[0];
+        _entityTypes = new Class<?>[0];
+        _entityX = _entityY = _entityZ = new double[0];
+        _projectiles = Collections.emptyList();
+        _blocks = Collections.emptyMap();
+        _itemCounts = Collections.emptyMap();
+    }
+
+    private WorldSnapshot(long tick, ClientPlayerEntity player, List<Entity> entities, List<CachedProjectile> projectiles, Map<Block, BlockPositions> blocks, Map<Item, Integer> itemCounts) {
+        _tick = tick;
+        _dimension = WorldHelper.getCurrentDimension();
+        _playerPosition = player.getPos();
+        _playerVelocity = player.getVelocity();
+        _playerHealth = player.getHealth();
+        _playerFood = player.getHungerManager().getFoodLevel();
+        _playerOnGround = player.isOnGround();
+
+        int count = 0;
+        for (Entity entity : entities) {
+            if (entity.isAlive()) count++;
+        }
+        _entityIds = new int[count];
+        _entityTypes = new Class<?>[count];
+        _entityX = new double[count];
+        _entityY = new double[count];
+        _entityZ = new double[count];
+        int i = 0;
+        for (Entity entity : entities) {
+            if (!entity.isAlive()) continue;
+            _entityIds[i] = entity.getId();
+            _entityTypes[i] = entity.getClass();
+            _entityX[i] = entity.getX();
+            _entityY[i] = entity.getY();
+            _entityZ[i] = entity.getZ();
+            i++;
+        }
+
+        _projectiles = List.copyOf(projectiles);
+        _blocks = Collections.unmodifiableMap(blocks);
+        _itemCounts = Collections.unmodifiableMap(itemCounts);
+    }
+
+    /**
+     * Copies the current state out of the trackers. Client thread only.
+     *
+     * @param previous The last snapshot, whose block copies are reused for anything that hasn't changed since.
+     */
+    static WorldSnapshot capture(AltoClef mod, long tick, WorldSnapshot previous) {
+        if (!AltoClef.inGame()) return EMPTY;
+        // Outside the lock, these bring their trackers up to date and take it themselves.
+        List<CachedProjectile> projectiles = mod.getEntityTracker().getProjectiles();
+        Map<Item, Integer> itemCounts = mod.getItemStorage().getPlayerItemCounts();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            HashMap<Block, BlockPositions> blocks = new HashMap<>();
+            mod.getBlockTracker().forEachTracked((block, index) -> {
+                BlockPositions old = previous._blocks.get(block);
+                if (old != null && old.source == index && old.modCount == index.getModCount()) {
+                    blocks.put(block, old);
+                } else {
+                    blocks.put(block, new BlockPositions(index, index.getModCount(), index.toArray()));
+                }
+            });
+            return new WorldSnapshot(tick, mod.getPlayer(), mod.getEntityTracker().getAllTracked(), projectiles, blocks, itemCounts);
+        }
+    }
+
+    /**
+     * @return The tick this was captured on, -1 if it was captured outside of a world.
+     */
+    public long getTick() {
+        return _tick;
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    public Dimension getDimension() {
+        return _dimension;
+    }
+
+    public Vec3d getPlayerPosition() {
+        return _playerPosition;
+    }
+
+    public Vec3d getPlayerVelocity() {
+        return _playerVelocity;
+    }
+
+    public float getPlayerHealth() {
+        return _playerHealth;
+    }
+
+    public int getPlayerFood() {
+        return _playerFood;
+    }
+
+    public boolean isPlayerOnGround() {
+        return _playerOnGround;
+    }
+
+    public int getEntityCount() {
+        return _entityIds.length;
+    }
+
+    public int getEntityId(int index) {
+        return _entityIds[index];
+    }
+
+    public Class<?> getEntityType(int index) {
+        return _entityTypes[index];
+    }
+
+    public Vec3d getEntityPosition(int index) {
+        return new Vec3d(_entityX[index], _entityY[index], _entityZ[index]);
+    }
+
+    /**
+     * @return Index of the closest entity of any of these types, -1 if there are none.
+     */
+    @SafeVarargs
+    public final int getClosestEntity(Vec3d position, Class<? extends Entity>... types) {
+        int best = -1;
+        double bestDistanceSq = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < _entityIds.length; ++i) {
+            if (!isAnyOf(_entityTypes[i], types)) continue;
+            double dx = _entityX[i] - position.x, dy = _entityY[i] - position.y, dz = _entityZ[i] - position.z;
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (distanceSq < bestDistanceSq) {
+                bestDistanceSq = distanceSq;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The projectiles in flight we'd want to dodge, as the entity tracker saw them.
+     */
+    public List<CachedProjectile> getProjectiles() {
+        return _projectiles;
+    }
+
+    /**
+     * @return Packed ({@link BlockPos#asLong}) positions of every tracked block of this type. Shared between
+     * snapshots, don't modify it.
+     */
+    public long[] getBlockPositions(Block block) {
+        BlockPositions positions = _blocks.get(block);
+        return positions == null ? NO_POSITIONS : positions.positions;
+    }
+
+    /**
+     * @return How many of these items the player had, inventory and cursor.
+     */
+    public int getItemCount(Item... items) {
+        int result = 0;
+        for (Item item : items) {
+            result += _itemCounts.getOrDefault(item, 0);
+        }
+        return result;
+    }
+
+    private static boolean isAnyOf(Class<?> type, Class<?>[] types) {
+        for (Class<?> candidate : types) {
+            if (candidate.isAssignableFrom(type)) return true;
+        }
+        return false;
+    }
+
+    // What a block index held as of some change. The index is only ever compared against, never read.
+    private record BlockPositions(SectionBucketIndex source, int modCount, long[] positions) {
+    }
+}
@@ -3,30 +3,63 @@ package adris.altoclef.trackers.blacklisting;
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
 import adris.altoclef.util.MiningRequirement;
+import adris.altoclef.util.collections.Long2ObjectHashMap;
 import adris.altoclef.util.helpers.StorageHelper;
 import net.minecraft.util.math.Vec3d;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
 
 /**
  * Sometimes we will try to access something and fail TOO many times.
  * <p>
  * This lets us know that a block is unreachable, and will ignore it from the search intelligently.
+ * <p>
+ * Nothing is blacklisted forever. Failures are forgotten if we stop failing for a while, and a blacklisted object
+ * is let back in after a backoff that doubles every time it gets blacklisted again (things change, we might have
+ * built a way there since). Once an object has been quiet long enough we forget it entirely, and we never remember
+ * more than {@link #MAX_ENTRIES} objects, dropping whichever would expire soonest.
+ * <p>
+ * Call {@link #sweep} every tick. It only looks at entries that are actually due.
  */
 public abstract class AbstractObjectBlacklist<T> {
 
-    private final HashMap<T, BlacklistEntry> _entries = new HashMap<>();
+    // Failures stop counting if we go this long without another one.
+    private static final long FAILURE_MEMORY_MILLIS = 2 * 60 * 1000;
+    private static final long BASE_BACKOFF_MILLIS = 30 * 1000;
+    private static final long MAX_BACKOFF_MILLIS = 10 * 60 * 1000;
+    // How long we keep counting strikes (for the backoff) after a blacklisting runs out.
+    private static final long STRIKE_MEMORY_MILLIS = 10 * 60 * 1000;
+    private static final int MAX_ENTRIES = 4096;
+
+    // Keyed by `getKey`, so we don't hold on to boxed positions or whole entities.
+    private final Long2ObjectHashMap<BlacklistEntry> _entries = new Long2ObjectHashMap<>();
+    // When each entry next needs looking at, soonest first.
+    private final ExpiryQueue _expiries = new ExpiryQueue();
+    // Blacklisted entries we had to drop to stay under the cap, reported on the next sweep.
+    private final List<Long> _evictedBlacklisted = new ArrayList<>();
 
     public void blackListItem(AltoClef mod, T item, int numberOfFailuresAllowed) {
-        if (!_entries.containsKey(item)) {
-            BlacklistEntry entry = new BlacklistEntry();
+        long now = now();
+        long key = getKey(item);
+        BlacklistEntry entry = _entries.get(key);
+        if (entry == null) {
+            if (_entries.size() >= MAX_ENTRIES) {
+                evictSoonest();
+            }
+            entry = new BlacklistEntry();
             entry.numberOfFailuresAllowed = numberOfFailuresAllowed;
             entry.numberOfFailures = 0;
             entry.bestDistanceSq = Double.POSITIVE_INFINITY;
             entry.bestTool = MiningRequirement.HAND;
-            _entries.put(item, entry);
+            _entries.put(key, entry);
+        } else if (entry.blacklistedUntil != 0 && !entry.isBlacklisted(now)) {
+            // Ran out but hasn't been swept yet, same as if it had.
+            entry.blacklistedUntil = 0;
+            entry.numberOfFailures = 0;
         }
-        BlacklistEntry entry = _entries.get(item);
         double newDistance = getPos(item).squaredDistanceTo(mod.getPlayer().getPos());
         MiningRequirement newTool = StorageHelper.getCurrentMiningRequirement(mod);
         // For distance, add a slight threshold so it doesn't reset EVERY time we move a tiny bit closer.
@@ -34,32 +67,196 @@ public abstract class AbstractObjectBlacklist<T> {
             if (newTool.ordinal() > entry.bestTool.ordinal()) entry.bestTool = newTool;
             if (newDistance < entry.bestDistanceSq) entry.bestDistanceSq = newDistance;
             entry.numberOfFailures = 0;
+            // Things got better, so it's reachable again right away. Changing `expiresAt` cancels its pending expiry,
+            // a new one is scheduled below.
+            if (entry.blacklistedUntil != 0) {
+                entry.blacklistedUntil = 0;
+                entry.expiresAt = 0;
+            }
             Debug.logMessage("Blacklist RESET: " + item.toString());
         }
         entry.numberOfFailures++;
         entry.numberOfFailuresAllowed = numberOfFailuresAllowed;
         Debug.logMessage("Blacklist: " + item.toString() + ": Try " + entry.numberOfFailures + " / " + entry.numberOfFailuresAllowed);
+
+        if (entry.numberOfFailures > entry.numberOfFailuresAllowed && !entry.isBlacklisted(now)) {
+            // Back off longer every time, we keep getting stuck on this one.
+            long backoff = Math.min(BASE_BACKOFF_MILLIS << Math.min(entry.strikes, 20), MAX_BACKOFF_MILLIS);
+            entry.strikes++;
+            entry.blacklistedUntil = now + backoff;
+            schedule(key, entry, entry.blacklistedUntil);
+        } else if (!entry.isBlacklisted(now) && now + FAILURE_MEMORY_MILLIS > entry.expiresAt) {
+            schedule(key, entry, now + FAILURE_MEMORY_MILLIS);
+        }
     }
 
     protected abstract Vec3d getPos(T item);
 
+    /**
+     * @return A primitive key that uniquely identifies `item`
+     */
+    protected abstract long getKey(T item);
+
     public boolean unreachable(T item) {
-        if (_entries.containsKey(item)) {
-            BlacklistEntry entry = _entries.get(item);
-            return entry.numberOfFailures > entry.numberOfFailuresAllowed;
+        BlacklistEntry entry = _entries.get(getKey(item));
+        return entry != null && entry.isBlacklisted(now());
+    }
+
+    /**
+     * Lets out whatever's served its time and forgets whatever's been quiet long enough.
+     *
+     * @param onReleased Gets the key of everything that's no longer unreachable.
+     */
+    public void sweep(LongConsumer onReleased) {
+        for (long key : _evictedBlacklisted) {
+            onReleased.accept(key);
         }
-        return false;
+        _evictedBlacklisted.clear();
+        long now = now();
+        while (!_expiries.isEmpty() && _expiries.peekTime() <= now) {
+            long key = _expiries.peekKey();
+            long time = _expiries.peekTime();
+            _expiries.pop();
+            BlacklistEntry entry = _entries.get(key);
+            // Rescheduled since, there's a later one in the queue.
+            if (entry == null || entry.expiresAt != time) continue;
+            expire(key, entry, now, onReleased);
+        }
+    }
+
+    public void sweep() {
+        sweep(key -> {
+        });
+    }
+
+    public int size() {
+        return _entries.size();
     }
 
     public void clear() {
         _entries.clear();
+        _expiries.clear();
+        _evictedBlacklisted.clear();
+    }
+
+    private void expire(long key, BlacklistEntry entry, long now, LongConsumer onReleased) {
+        if (entry.blacklistedUntil != 0) {
+            // Served its time. Start counting failures again, but remember the strikes for a while.
+            entry.blacklistedUntil = 0;
+            entry.numberOfFailures = 0;
+            onReleased.accept(key);
+            schedule(key, entry, now + STRIKE_MEMORY_MILLIS);
+        } else {
+            _entries.remove(key);
+        }
+    }
+
+    private void evictSoonest() {
+        while (!_expiries.isEmpty()) {
+            long key = _expiries.peekKey();
+            long time = _expiries.peekTime();
+            _expiries.pop();
+            BlacklistEntry entry = _entries.get(key);
+            if (entry == null || entry.expiresAt != time) continue;
+            _entries.remove(key);
+            if (entry.blacklistedUntil != 0) {
+                _evictedBlacklisted.add(key);
+            }
+            return;
+        }
+    }
+
+    private void schedule(long key, BlacklistEntry entry, long time) {
+        entry.expiresAt = time;
+        _expiries.push(time, key);
+        // Rescheduling leaves stale pairs behind, don't let them pile up.
+        if (_expiries.size() > 4 * Math.max(_entries.size(), 16)) {
+            _expiries.clear();
+            _entries.forEach((entryKey, value) -> _expiries.push(value.expiresAt, entryKey));
+        }
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000;
     }
 
-    // Key: BlockPos
     private static class BlacklistEntry {
         public int numberOfFailuresAllowed;
         public int numberOfFailures;
         public double bestDistanceSq;
         public MiningRequirement bestTool;
+        // How many times this has been blacklisted, recently.
+        public int strikes;
+        // 0 if not blacklisted.
+        public long blacklistedUntil;
+        // When this entry is next due in the expiry queue. Older queue entries for it are stale.
+        public long expiresAt;
+
+        public boolean isBlacklisted(long now) {
+            return blacklistedUntil != 0 && now < blacklistedUntil;
+        }
+    }
+
+    /**
+     * Min heap of (time, key) pairs in two primitive arrays. Stale pairs are left in and skipped when popped.
+     */
+    private static class ExpiryQueue {
+        private long[] _times = new long[16];
+        private long[] _keys = new long[16];
+        private int _size;
+
+        public boolean isEmpty() {
+            return _size == 0;
+        }
+
+        public int size() {
+            return _size;
+        }
+
+        public long peekTime() {
+            return _times[0];
+        }
+
+        public long peekKey() {
+            return _keys[0];
+        }
+
+        public void push(long time, long key) {
+            if (_size == _times.length) {
+                _times = Arrays.copyOf(_times, _size * 2);
+                _keys = Arrays.copyOf(_keys, _size * 2);
+            }
+            int i = _size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (_times[parent] <= time) break;
+                _times[i] = _times[parent];
+                _keys[i] = _keys[parent];
+                i = parent;
+            }
+            _times[i] = time;
+            _keys[i] = key;
+        }
+
+        public void pop() {
+            long time = _times[--_size];
+            long key = _keys[_size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= _size) break;
+                if (child + 1 < _size && _times[child + 1] < _times[child]) child++;
+                if (_times[child] >= time) break;
+                _times[i] = _times[child];
+                _keys[i] = _keys[child];
+                i = child;
+            }
+            _times[i] = time;
+            _keys[i] = key;
+        }
+
+        public void clear() {
+            _size = 0;
+        }
     }
 }
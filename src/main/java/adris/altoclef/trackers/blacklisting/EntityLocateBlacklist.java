@@ -8,4 +8,9 @@ public class EntityLocateBlacklist extends AbstractObjectBlacklist<Entity> {
     protected Vec3d getPos(Entity item) {
         return item.getPos();
     }
+
+    @Override
+    protected long getKey(Entity item) {
+        return item.getId();
+    }
 }
@@ -9,4 +9,9 @@ public class WorldLocateBlacklist extends AbstractObjectBlacklist<BlockPos> {
     protected Vec3d getPos(BlockPos item) {
         return WorldHelper.toVec3d(item);
     }
+
+    @Override
+    protected long getKey(BlockPos item) {
+        return item.asLong();
+    }
 }
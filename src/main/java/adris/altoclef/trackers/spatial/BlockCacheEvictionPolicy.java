@@ -0,0 +1,44 @@
+package adris.altoclef.trackers.spatial;
+
+import net.minecraft.block.Block;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * Decides which cached block positions get thrown out once a block cache grows past its limits.
+ * <p>
+ * The cache reports every add/remove/access as it happens, so a policy can keep its ranking up to date
+ * as it goes instead of sorting everything whenever we need room.
+ * Positions are packed ({@link net.minecraft.util.math.BlockPos#asLong()}).
+ */
+public interface BlockCacheEvictionPolicy {
+
+    @FunctionalInterface
+    interface Evictor {
+        /**
+         * Remove this entry from the cache. The policy has already forgotten it.
+         */
+        void evict(Block block, long pos);
+    }
+
+    void onAdded(Block block, long pos);
+
+    void onRemoved(Block block, long pos);
+
+    /**
+     * A position was handed out to someone, so it's worth keeping around.
+     */
+    void onAccessed(Block block, long pos);
+
+    /**
+     * @param reference      Where distances are measured from (usually the player)
+     * @param cutoffDistance Past this distance, entries are always the first to go
+     */
+    void setReference(Vec3d reference, double cutoffDistance);
+
+    /**
+     * Evicts entries until every block type holds at most `maxPerType` and everything together at most `maxTotal`.
+     */
+    void evict(int maxPerType, int maxTotal, Evictor evictor);
+
+    void clear();
+}
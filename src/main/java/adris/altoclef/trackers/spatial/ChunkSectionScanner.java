@@ -0,0 +1,128 @@
+package adris.altoclef.trackers.spatial;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.function.Predicate;
+
+/**
+ * Looks through chunks one section (16x16x16) at a time instead of one block position at a time.
+ * <p>
+ * Before touching a section we ask its palette whether any of the states we want are in there at all,
+ * which throws out most sections (all air, all stone...) without reading a single block.
+ * Sections that pass are walked in storage order with one mutable cursor, so a scan allocates nothing per block.
+ */
+public class ChunkSectionScanner {
+
+    /**
+     * Called for every matching block.
+     * <p>
+     * `pos` is reused for the whole scan, call {@link BlockPos#toImmutable()} if you want to keep it.
+     *
+     * @return true to stop scanning
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        boolean visit(BlockPos.Mutable pos, BlockState state);
+    }
+
+    /**
+     * Scans a whole chunk.
+     *
+     * @param target  Which states we care about. Keep this cheap and free of side effects, it's called on palette entries too.
+     * @param visitor Called for every block whose state passes `target`
+     * @return whether `visitor` asked us to stop at any point.
+     */
+    public static boolean scanChunk(Chunk chunk, Predicate<BlockState> target, Visitor visitor) {
+        return scanChunk(chunk, chunk.getBottomY(), chunk.getTopY() - 1, target, visitor);
+    }
+
+    /**
+     * Scans a chunk between two heights (inclusive).
+     */
+    public static boolean scanChunk(Chunk chunk, int minY, int maxY, Predicate<BlockState> target, Visitor visitor) {
+        int startX = chunk.getPos().getStartX(),
+                startZ = chunk.getPos().getStartZ();
+        return scanChunkRegion(chunk, startX, minY, startZ, startX + 15, maxY, startZ + 15, target, visitor, new BlockPos.Mutable());
+    }
+
+    /**
+     * Scans every block between `start` and `end` (inclusive) in loaded chunks. Unloaded chunks are skipped.
+     */
+    public static boolean scanRegion(World world, BlockPos start, BlockPos end, Predicate<BlockState> target, Visitor visitor) {
+        int minX = Math.min(start.getX(), end.getX()), maxX = Math.max(start.getX(), end.getX()),
+                minY = Math.min(start.getY(), end.getY()), maxY = Math.max(start.getY(), end.getY()),
+                minZ = Math.min(start.getZ(), end.getZ()), maxZ = Math.max(start.getZ(), end.getZ());
+        BlockPos.Mutable cursor = new BlockPos.Mutable();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; ++chunkX) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; ++chunkZ) {
+                if (!world.getChunkManager().isChunkLoaded(chunkX, chunkZ)) continue;
+                Chunk chunk = world.getChunk(chunkX, chunkZ);
+                if (scanChunkRegion(chunk, minX, minY, minZ, maxX, maxY, maxZ, target, visitor, cursor)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Bounds may stick out of the chunk, they get clamped.
+    private static boolean scanChunkRegion(Chunk chunk, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Predicate<BlockState> target, Visitor visitor, BlockPos.Mutable cursor) {
+        int startX = chunk.getPos().getStartX(),
+                startZ = chunk.getPos().getStartZ();
+        int localMinX = Math.max(minX - startX, 0), localMaxX = Math.min(maxX - startX, 15),
+                localMinZ = Math.max(minZ - startZ, 0), localMaxZ = Math.min(maxZ - startZ, 15);
+        if (localMinX > localMaxX || localMinZ > localMaxZ) return false;
+
+        minY = Math.max(minY, chunk.getBottomY());
+        maxY = Math.min(maxY, chunk.getTopY() - 1);
+        if (minY > maxY) return false;
+
+        // Air sections only matter if we're looking for air.
+        boolean wantsAir = target.test(Blocks.AIR.getDefaultState()) || target.test(Blocks.CAVE_AIR.getDefaultState()) || target.test(Blocks.VOID_AIR.getDefaultState());
+
+        ChunkSection[] sections = chunk.getSectionArray();
+        for (int sectionIndex = chunk.getSectionIndex(minY); sectionIndex <= chunk.getSectionIndex(maxY); ++sectionIndex) {
+            ChunkSection section = sections[sectionIndex];
+            if (section == null || (!wantsAir && section.isEmpty())) continue;
+            PalettedContainer<BlockState> states = section.getBlockStateContainer();
+            // Palette check, doesn't look at any blocks.
+            if (!states.hasAny(target)) continue;
+
+            int sectionMinY = chunk.sectionIndexToCoord(sectionIndex) << 4;
+            int localMinY = Math.max(minY - sectionMinY, 0), localMaxY = Math.min(maxY - sectionMinY, 15);
+            if (scanSection(states, startX, sectionMinY, startZ, localMinX, localMinY, localMinZ, localMaxX, localMaxY, localMaxZ, target, visitor, cursor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks part of one section (local bounds inclusive, 0 to 15) whose palette we already know has something in it.
+     * Package private so it can be timed on its own.
+     */
+    static boolean scanSection(PalettedContainer<BlockState> states, int originX, int originY, int originZ,
+                               int localMinX, int localMinY, int localMinZ, int localMaxX, int localMaxY, int localMaxZ,
+                               Predicate<BlockState> target, Visitor visitor, BlockPos.Mutable cursor) {
+        StateMatcher matcher = new StateMatcher(target);
+        // Storage order is y, then z, then x.
+        for (int y = localMinY; y <= localMaxY; ++y) {
+            for (int z = localMinZ; z <= localMaxZ; ++z) {
+                for (int x = localMinX; x <= localMaxX; ++x) {
+                    BlockState state = states.get(x, y, z);
+                    if (matcher.matches(state)) {
+                        cursor.set(originX + x, originY + y, originZ + z);
+                        if (visitor.visit(cursor, state)) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package adris.altoclef.trackers.spatial;
+
+import adris.altoclef.util.helpers.HarnessHelper;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Compares {@link ChunkSectionScanner} with the per block loop it replaced, on made up sections.
+ * <p>
+ * Needs the block registry, so run it in game (`@test scanner`).
+ */
+public class ChunkSectionScannerTest {
+
+    private static final HarnessHelper HARNESS = new HarnessHelper("ChunkSectionScanner");
+    private static final int SECTIONS = 24;
+
+    public static void test() {
+        Random random = new Random(1234);
+        // Like a column of real sections: mostly plain stone, some with ores, a few noisy ones.
+        PalettedContainer<BlockState>[] sections = createSections(random);
+        Predicate<BlockState> target = state -> state.isOf(Blocks.DIAMOND_ORE) || state.isOf(Blocks.IRON_ORE);
+
+        Set<Long> expected = new HashSet<>();
+        scanPerBlock(sections, target, expected::add);
+        Set<Long> actual = new HashSet<>();
+        scanPalette(sections, target, new BlockPos.Mutable(), actual::add);
+        HARNESS.check(expected.equals(actual), "palette scan finds the same blocks", actual.size() + " vs " + expected.size());
+        HARNESS.passed(expected.size() + " matches");
+
+        BlockPos.Mutable cursor = new BlockPos.Mutable();
+        long[] found = new long[1];
+        double perBlockNanos = HarnessHelper.time(200, i -> {
+            scanPerBlock(sections, target, pos -> found[0]++);
+            return found[0];
+        });
+        double paletteNanos = HarnessHelper.time(200, i -> {
+            scanPalette(sections, target, cursor, pos -> found[0]++);
+            return found[0];
+        });
+        HARNESS.log("%d sections, per block loop %.1fus, palette scan %.1fus (%.1fx)",
+                sections.length, perBlockNanos / 1000, paletteNanos / 1000, perBlockNanos / paletteNanos);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PalettedContainer<BlockState>[] createSections(Random random) {
+        BlockState stone = Blocks.STONE.getDefaultState();
+        BlockState[] noise = {stone, Blocks.DIRT.getDefaultState(), Blocks.GRAVEL.getDefaultState(), Blocks.ANDESITE.getDefaultState(), Blocks.WATER.getDefaultState()};
+        PalettedContainer<BlockState>[] sections = new PalettedContainer[SECTIONS];
+        for (int i = 0; i < SECTIONS; ++i) {
+            PalettedContainer<BlockState> states = new PalettedContainer<>(Block.STATE_IDS, Blocks.AIR.getDefaultState(), PalettedContainer.PaletteProvider.BLOCK_STATE);
+            int kind = i % 4;
+            for (int y = 0; y < 16; ++y) {
+                for (int z = 0; z < 16; ++z) {
+                    for (int x = 0; x < 16; ++x) {
+                        BlockState state;
+                        if (kind == 0) {
+                            // Plain stone, the palette throws these out.
+                            state = stone;
+                        } else if (kind == 3) {
+                            state = noise[random.nextInt(noise.length)];
+                        } else {
+                            state = stone;
+                        }
+                        if (kind != 0 && random.nextInt(100) == 0) {
+                            state = random.nextBoolean() ? Blocks.DIAMOND_ORE.getDefaultState() : Blocks.IRON_ORE.getDefaultState();
+                        }
+                        states.set(x, y, z, state);
+                    }
+                }
+            }
+            sections[i] = states;
+        }
+        return sections;
+    }
+
+    // How it used to be done: a new BlockPos and a state lookup for every single block.
+    private static void scanPerBlock(PalettedContainer<BlockState>[] sections, Predicate<BlockState> target, LongConsumer found) {
+        for (int i = 0; i < sections.length; ++i) {
+            for (int x = 0; x < 16; ++x) {
+                for (int y = i * 16; y < i * 16 + 16; ++y) {
+                    for (int z = 0; z < 16; ++z) {
+                        BlockPos pos = new BlockPos(x, y, z);
+                        if (target.test(sections[i].get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15))) {
+                            found.accept(pos.asLong());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void scanPalette(PalettedContainer<BlockState>[] sections, Predicate<BlockState> target, BlockPos.Mutable cursor, LongConsumer found) {
+        for (int i = 0; i < sections.length; ++i) {
+            if (!sections[i].hasAny(target)) continue;
+            ChunkSectionScanner.scanSection(sections[i], 0, i * 16, 0, 0, 0, 0, 15, 15, 15, target, (pos, state) -> {
+                found.accept(pos.asLong());
+                return false;
+            }, cursor);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package adris.altoclef.trackers.spatial;
+
+import adris.altoclef.util.helpers.BaritoneHelper;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * How a {@link SectionBucketIndex} or {@link EntityGrid} ranks positions when searching outward.
+ * <p>
+ * {@link #lowerBound(double)} must never be larger than {@link #score(Vec3d, BlockPos)} for any position
+ * that is at least that many blocks away horizontally, otherwise the search stops too early.
+ */
+public interface DistanceMetric {
+
+    /**
+     * Baritone's generic heuristic, the same score BlockTracker has always used to pick the "closest" block.
+     * <p>
+     * GoalXZ costs at least (chebyshev distance * costHeuristic) and the Y part is never negative,
+     * so scoring a straight line of the same length gives us a safe bound.
+     */
+    DistanceMetric BARITONE_HEURISTIC = new DistanceMetric() {
+        @Override
+        public double score(Vec3d origin, int x, int y, int z) {
+            return BaritoneHelper.calculateGenericHeuristic(origin.x, origin.y, origin.z, x + 0.5, y + 0.5, z + 0.5);
+        }
+
+        @Override
+        public double score(Vec3d origin, Vec3d pos) {
+            return BaritoneHelper.calculateGenericHeuristic(origin, pos);
+        }
+
+        @Override
+        public double lowerBound(double horizontalDistance) {
+            return BaritoneHelper.calculateGenericHeuristic(0, 0, 0, horizontalDistance, 0, 0);
+        }
+    };
+
+    /**
+     * Plain squared distance to the center of the block.
+     */
+    DistanceMetric SQUARED_DISTANCE = new DistanceMetric() {
+        @Override
+        public double score(Vec3d origin, int x, int y, int z) {
+            double dx = x + 0.5 - origin.x,
+                    dy = y + 0.5 - origin.y,
+                    dz = z + 0.5 - origin.z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        @Override
+        public double score(Vec3d origin, Vec3d pos) {
+            return origin.squaredDistanceTo(pos);
+        }
+
+        @Override
+        public double lowerBound(double horizontalDistance) {
+            return horizontalDistance * horizontalDistance;
+        }
+    };
+
+    double score(Vec3d origin, int x, int y, int z);
+
+    default double score(Vec3d origin, BlockPos pos) {
+        return score(origin, pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * Scores an exact position (an entity for instance) instead of a block.
+     */
+    double score(Vec3d origin, Vec3d pos);
+
+    /**
+     * @param horizontalDistance The smallest horizontal (chebyshev) distance a position can have from the origin
+     * @return The smallest score such a position could possibly get.
+     */
+    double lowerBound(double horizontalDistance);
+}
@@ -0,0 +1,218 @@
+package adris.altoclef.trackers.spatial;
+
+import adris.altoclef.util.collections.Long2ObjectHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evicts the furthest blocks first, and among blocks about as far away, the ones nobody has asked for in a while.
+ * <p>
+ * Every block type sorts its entries into distance shells around a reference point (16 blocks thick, plus one
+ * shell for everything past the cutoff distance). Each shell is a linked list in recency order, so adding,
+ * removing, touching and evicting an entry are all O(1) (well, O(shells)). Entries are only re-sorted when the
+ * reference moves a whole shell away, which is spread out over a lot of movement.
+ */
+public class DistanceRecencyEvictionPolicy implements BlockCacheEvictionPolicy {
+
+    private static final int SHELL_SIZE = 16;
+
+    private final Map<Block, TypeQueue> _types = new HashMap<>();
+    private int _total;
+
+    private boolean _hasReference;
+    private double _referenceX, _referenceY, _referenceZ;
+    private double _cutoffDistance = Double.POSITIVE_INFINITY;
+    // Last shell is "past the cutoff"
+    private int _shellCount = 1;
+
+    @Override
+    public void onAdded(Block block, long pos) {
+        TypeQueue queue = _types.computeIfAbsent(block, b -> new TypeQueue(_shellCount));
+        Node node = queue.nodes.get(pos);
+        if (node != null) {
+            queue.touch(node);
+            return;
+        }
+        node = new Node(pos);
+        queue.nodes.put(pos, node);
+        queue.append(node, shellOf(pos));
+        _total++;
+    }
+
+    @Override
+    public void onRemoved(Block block, long pos) {
+        TypeQueue queue = _types.get(block);
+        if (queue == null) return;
+        Node node = queue.nodes.remove(pos);
+        if (node == null) return;
+        queue.unlink(node);
+        _total--;
+        if (queue.nodes.isEmpty()) {
+            _types.remove(block);
+        }
+    }
+
+    @Override
+    public void onAccessed(Block block, long pos) {
+        TypeQueue queue = _types.get(block);
+        if (queue == null) return;
+        Node node = queue.nodes.get(pos);
+        if (node != null) {
+            queue.touch(node);
+        }
+    }
+
+    @Override
+    public void setReference(Vec3d reference, double cutoffDistance) {
+        int shellCount = Math.max((int) Math.ceil(Math.min(cutoffDistance, 1e6) / SHELL_SIZE), 1) + 1;
+        boolean moved = !_hasReference
+                || Math.abs(reference.x - _referenceX) > SHELL_SIZE
+                || Math.abs(reference.y - _referenceY) > SHELL_SIZE
+                || Math.abs(reference.z - _referenceZ) > SHELL_SIZE;
+        if (!moved && shellCount == _shellCount && cutoffDistance == _cutoffDistance) return;
+        _hasReference = true;
+        _referenceX = reference.x;
+        _referenceY = reference.y;
+        _referenceZ = reference.z;
+        _cutoffDistance = cutoffDistance;
+        _shellCount = shellCount;
+        // Re-sort everything into its new shell. Recency order within a shell carries over.
+        for (TypeQueue queue : _types.values()) {
+            queue.rebucket(this);
+        }
+    }
+
+    @Override
+    public void evict(int maxPerType, int maxTotal, Evictor evictor) {
+        for (Map.Entry<Block, TypeQueue> entry : _types.entrySet()) {
+            TypeQueue queue = entry.getValue();
+            while (queue.nodes.size() > maxPerType) {
+                evictOne(entry.getKey(), queue, evictor);
+            }
+        }
+        while (_total > maxTotal) {
+            // Throw out whoever has the furthest entry, bigger caches first if that's a tie.
+            Block worstBlock = null;
+            TypeQueue worst = null;
+            int worstShell = -1;
+            for (Map.Entry<Block, TypeQueue> entry : _types.entrySet()) {
+                TypeQueue queue = entry.getValue();
+                int shell = queue.furthestShell();
+                if (shell > worstShell || (worst != null && shell == worstShell && queue.nodes.size() > worst.nodes.size())) {
+                    worstShell = shell;
+                    worst = queue;
+                    worstBlock = entry.getKey();
+                }
+            }
+            if (worst == null) break;
+            evictOne(worstBlock, worst, evictor);
+        }
+        _types.values().removeIf(queue -> queue.nodes.isEmpty());
+    }
+
+    private void evictOne(Block block, TypeQueue queue, Evictor evictor) {
+        // Oldest entry of the furthest shell
+        Node node = queue.heads[queue.furthestShell()];
+        queue.unlink(node);
+        queue.nodes.remove(node.pos);
+        _total--;
+        evictor.evict(block, node.pos);
+    }
+
+    @Override
+    public void clear() {
+        _types.clear();
+        _total = 0;
+    }
+
+    private int shellOf(long pos) {
+        if (!_hasReference) return 0;
+        double dx = BlockPos.unpackLongX(pos) + 0.5 - _referenceX,
+                dy = BlockPos.unpackLongY(pos) + 0.5 - _referenceY,
+                dz = BlockPos.unpackLongZ(pos) + 0.5 - _referenceZ;
+        double distanceSq = dx * dx + dy * dy + dz * dz;
+        if (distanceSq > _cutoffDistance * _cutoffDistance) {
+            return _shellCount - 1;
+        }
+        return Math.min((int) (Math.sqrt(distanceSq) / SHELL_SIZE), _shellCount - 2);
+    }
+
+    private static class Node {
+        public final long pos;
+        public int shell;
+        public Node prev, next;
+
+        public Node(long pos) {
+            this.pos = pos;
+        }
+    }
+
+    private static class TypeQueue {
+        public final Long2ObjectHashMap<Node> nodes = new Long2ObjectHashMap<>();
+        // Per shell: least recently used at the head, most recent at the tail.
+        public Node[] heads;
+        public Node[] tails;
+
+        public TypeQueue(int shellCount) {
+            heads = new Node[shellCount];
+            tails = new Node[shellCount];
+        }
+
+        public void append(Node node, int shell) {
+            node.shell = shell;
+            node.next = null;
+            node.prev = tails[shell];
+            if (tails[shell] != null) {
+                tails[shell].next = node;
+            } else {
+                heads[shell] = node;
+            }
+            tails[shell] = node;
+        }
+
+        public void unlink(Node node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                heads[node.shell] = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                tails[node.shell] = node.prev;
+            }
+            node.prev = node.next = null;
+        }
+
+        public void touch(Node node) {
+            int shell = node.shell;
+            unlink(node);
+            append(node, shell);
+        }
+
+        public int furthestShell() {
+            for (int shell = heads.length - 1; shell >= 0; --shell) {
+                if (heads[shell] != null) return shell;
+            }
+            return -1;
+        }
+
+        public void rebucket(DistanceRecencyEvictionPolicy policy) {
+            Node[] oldHeads = heads;
+            heads = new Node[policy._shellCount];
+            tails = new Node[policy._shellCount];
+            for (Node head : oldHeads) {
+                Node node = head;
+                while (node != null) {
+                    Node next = node.next;
+                    append(node, policy.shellOf(node.pos));
+                    node = next;
+                }
+            }
+        }
+    }
+}
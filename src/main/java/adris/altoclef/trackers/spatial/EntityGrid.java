@@ -0,0 +1,201 @@
+package adris.altoclef.trackers.spatial;
+
+import adris.altoclef.util.collections.Long2ObjectHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Entities bucketed into 8x8 block columns by where they were when added, so range and closest queries only look
+ * at the cells around the origin instead of every entity we know about.
+ * <p>
+ * Meant to be rebuilt every tick. Entities keep moving after they're added, so searches give every cell
+ * {@link #DRIFT} blocks of slack before ruling it out.
+ * <p>
+ * Not thread safe.
+ */
+public class EntityGrid<T extends Entity> {
+
+    private static final int CELL_SHIFT = 3;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+    // How far an entity may have moved since it was added and still be found.
+    private static final double DRIFT = 2;
+    // If walking every ring would visit this many times more cells than we have, sort the cells instead.
+    private static final int SPARSE_WALK_FACTOR = 4;
+
+    private final Long2ObjectHashMap<Cell<T>> _cells = new Long2ObjectHashMap<>();
+    private int _size;
+    private int _minCellX, _maxCellX, _minCellZ, _maxCellZ;
+
+    public void add(T entity) {
+        int cellX = ((int) Math.floor(entity.getX())) >> CELL_SHIFT,
+                cellZ = ((int) Math.floor(entity.getZ())) >> CELL_SHIFT;
+        long key = ChunkPos.toLong(cellX, cellZ);
+        Cell<T> cell = _cells.get(key);
+        if (cell == null) {
+            cell = new Cell<>(cellX, cellZ);
+            _cells.put(key, cell);
+            if (_size == 0) {
+                _minCellX = _maxCellX = cellX;
+                _minCellZ = _maxCellZ = cellZ;
+            } else {
+                _minCellX = Math.min(_minCellX, cellX);
+                _maxCellX = Math.max(_maxCellX, cellX);
+                _minCellZ = Math.min(_minCellZ, cellZ);
+                _maxCellZ = Math.max(_maxCellZ, cellZ);
+            }
+        }
+        cell.entities.add(entity);
+        _size++;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public void clear() {
+        _cells.clear();
+        _size = 0;
+    }
+
+    /**
+     * @return Every entity closer than `range` to `origin` that passes `accept`, in no particular order.
+     */
+    public List<T> getWithinRange(Vec3d origin, double range, Predicate<? super T> accept) {
+        List<T> result = new ArrayList<>();
+        double rangeSq = range * range;
+        walkOutward(origin, horizontalDistance -> horizontalDistance < range, cell -> {
+            for (T entity : cell.entities) {
+                if (entity.squaredDistanceTo(origin) < rangeSq && accept.test(entity)) {
+                    result.add(entity);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param maxScore Only entities scoring strictly below this are considered.
+     * @return The entity passing `accept` with the lowest score, or null if there isn't one.
+     */
+    public T getClosest(Vec3d origin, DistanceMetric metric, Predicate<? super T> accept, double maxScore) {
+        ClosestSearch<T> search = new ClosestSearch<>(origin, metric, accept, maxScore);
+        walkOutward(origin, horizontalDistance -> metric.lowerBound(horizontalDistance) < search.bestScore, search::visit);
+        return search.best;
+    }
+
+    private interface DistanceCheck {
+        // false ends the search: nothing this far away (horizontally) can matter.
+        boolean wants(double horizontalDistance);
+    }
+
+    private void walkOutward(Vec3d origin, DistanceCheck wants, Consumer<Cell<T>> visit) {
+        if (_size == 0) return;
+        int originCellX = ((int) Math.floor(origin.x)) >> CELL_SHIFT,
+                originCellZ = ((int) Math.floor(origin.z)) >> CELL_SHIFT;
+        int maxRing = Math.max(
+                Math.max(Math.abs(originCellX - _minCellX), Math.abs(_maxCellX - originCellX)),
+                Math.max(Math.abs(originCellZ - _minCellZ), Math.abs(_maxCellZ - originCellZ))
+        );
+        long ringCells = (2L * maxRing + 1) * (2L * maxRing + 1);
+        if (ringCells > (long) SPARSE_WALK_FACTOR * _cells.size()) {
+            walkSorted(origin, wants, visit);
+            return;
+        }
+        int remaining = _cells.size();
+        for (int ring = 0; ring <= maxRing && remaining > 0; ++ring) {
+            // Every cell in this ring is at least this far away horizontally, give or take drift.
+            double ringDistance = Math.max(0, (ring - 1) * CELL_SIZE - DRIFT);
+            if (!wants.wants(ringDistance)) return;
+            if (ring == 0) {
+                remaining -= visitCell(origin, originCellX, originCellZ, wants, visit);
+                continue;
+            }
+            for (int dx = -ring; dx <= ring; ++dx) {
+                remaining -= visitCell(origin, originCellX + dx, originCellZ - ring, wants, visit);
+                remaining -= visitCell(origin, originCellX + dx, originCellZ + ring, wants, visit);
+            }
+            for (int dz = -ring + 1; dz <= ring - 1; ++dz) {
+                remaining -= visitCell(origin, originCellX - ring, originCellZ + dz, wants, visit);
+                remaining -= visitCell(origin, originCellX + ring, originCellZ + dz, wants, visit);
+            }
+        }
+    }
+
+    // Returns 1 if there was a cell here, 0 otherwise.
+    private int visitCell(Vec3d origin, int cellX, int cellZ, DistanceCheck wants, Consumer<Cell<T>> visit) {
+        Cell<T> cell = _cells.get(ChunkPos.toLong(cellX, cellZ));
+        if (cell == null) return 0;
+        if (wants.wants(cell.horizontalDistance(origin))) {
+            visit.accept(cell);
+        }
+        return 1;
+    }
+
+    private void walkSorted(Vec3d origin, DistanceCheck wants, Consumer<Cell<T>> visit) {
+        List<Cell<T>> cells = new ArrayList<>(_cells.size());
+        _cells.forEachValue(cells::add);
+        double[] distances = new double[cells.size()];
+        Integer[] order = new Integer[cells.size()];
+        for (int i = 0; i < distances.length; ++i) {
+            distances[i] = cells.get(i).horizontalDistance(origin);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> distances[i]));
+        for (int i : order) {
+            if (!wants.wants(distances[i])) return;
+            visit.accept(cells.get(i));
+        }
+    }
+
+    private static class ClosestSearch<T extends Entity> {
+        private final Vec3d _origin;
+        private final DistanceMetric _metric;
+        private final Predicate<? super T> _accept;
+        public T best;
+        public double bestScore;
+
+        public ClosestSearch(Vec3d origin, DistanceMetric metric, Predicate<? super T> accept, double maxScore) {
+            _origin = origin;
+            _metric = metric;
+            _accept = accept;
+            bestScore = maxScore;
+        }
+
+        public void visit(Cell<T> cell) {
+            for (T entity : cell.entities) {
+                double score = _metric.score(_origin, entity.getPos());
+                if (score >= bestScore || !_accept.test(entity)) continue;
+                bestScore = score;
+                best = entity;
+            }
+        }
+    }
+
+    private static class Cell<T> {
+        public final int cellX, cellZ;
+        public final List<T> entities = new ArrayList<>(4);
+
+        public Cell(int cellX, int cellZ) {
+            this.cellX = cellX;
+            this.cellZ = cellZ;
+        }
+
+        // Closest an entity in here could be, horizontally, allowing for drift.
+        public double horizontalDistance(Vec3d origin) {
+            double minX = cellX << CELL_SHIFT,
+                    minZ = cellZ << CELL_SHIFT;
+            double dx = Math.max(0, Math.max(minX - origin.x, origin.x - (minX + CELL_SIZE)));
+            double dz = Math.max(0, Math.max(minZ - origin.z, origin.z - (minZ + CELL_SIZE)));
+            return Math.max(0, Math.max(dx, dz) - DRIFT);
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package adris.altoclef.trackers.spatial;
+
+import adris.altoclef.util.collections.LongHashSet;
+import adris.altoclef.util.collections.Long2ObjectHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A set of block positions bucketed by chunk section (16x16x16), so we can answer "what's closest" questions
+ * by walking outward from a point instead of looking at every position we know about.
+ * <p>
+ * Searches visit chunk columns in rings around the origin and stop as soon as no unvisited column could
+ * possibly beat what we've already found. If the known columns are few and spread out, they're sorted by distance
+ * instead, so a handful of far away blocks doesn't make us walk a huge empty ring.
+ * <p>
+ * Positions are stored packed ({@link BlockPos#asLong()}), so an entry costs a long instead of a BlockPos and a map node.
+ * <p>
+ * Not thread safe, callers are expected to hold whatever lock guards the owner.
+ */
+public class SectionBucketIndex {
+
+    // If walking every ring would visit this many times more cells than we have columns, sort the columns instead.
+    private static final int SPARSE_WALK_FACTOR = 4;
+
+    private final Long2ObjectHashMap<Column> _columns = new Long2ObjectHashMap<>();
+
+    private int _size;
+    // Goes up on every change, so copies can tell if they're out of date.
+    private int _modCount;
+
+    // Bounding box of every column we've had since we were last empty. Does not shrink on removal.
+    private int _minChunkX, _maxChunkX, _minChunkZ, _maxChunkZ;
+
+    public boolean add(BlockPos pos) {
+        int chunkX = pos.getX() >> 4,
+                chunkZ = pos.getZ() >> 4;
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        Column column = _columns.get(key);
+        if (column == null) {
+            column = new Column(chunkX, chunkZ);
+            _columns.put(key, column);
+            if (_size == 0) {
+                _minChunkX = _maxChunkX = chunkX;
+                _minChunkZ = _maxChunkZ = chunkZ;
+            } else {
+                _minChunkX = Math.min(_minChunkX, chunkX);
+                _maxChunkX = Math.max(_maxChunkX, chunkX);
+                _minChunkZ = Math.min(_minChunkZ, chunkZ);
+                _maxChunkZ = Math.max(_maxChunkZ, chunkZ);
+            }
+        }
+        if (column.add(pos)) {
+            _size++;
+            _modCount++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean remove(BlockPos pos) {
+        long key = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        Column column = _columns.get(key);
+        if (column == null || !column.remove(pos)) {
+            return false;
+        }
+        if (column.isEmpty()) {
+            _columns.remove(key);
+        }
+        _size--;
+        _modCount++;
+        return true;
+    }
+
+    /**
+     * Removes everything in a chunk column.
+     *
+     * @return The positions that were removed
+     */
+    public List<BlockPos> removeColumn(int chunkX, int chunkZ) {
+        Column column = _columns.remove(ChunkPos.toLong(chunkX, chunkZ));
+        if (column == null) return Collections.emptyList();
+        List<BlockPos> removed = new ArrayList<>();
+        for (Section section : column.sections) {
+            section.addAllTo(removed);
+        }
+        _size -= removed.size();
+        _modCount++;
+        return removed;
+    }
+
+    /**
+     * @return The packed positions we hold in a chunk column, empty if there are none.
+     */
+    public long[] getColumn(int chunkX, int chunkZ) {
+        Column column = _columns.get(ChunkPos.toLong(chunkX, chunkZ));
+        if (column == null) return new long[0];
+        int count = 0;
+        for (Section section : column.sections) {
+            count += section.positions.size();
+        }
+        long[] result = new long[count];
+        int i = 0;
+        for (Section section : column.sections) {
+            for (long pos : section.positions.toArray()) {
+                result[i++] = pos;
+            }
+        }
+        return result;
+    }
+
+    public boolean contains(BlockPos pos) {
+        Column column = _columns.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+        return column != null && column.contains(pos);
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public void clear() {
+        _columns.clear();
+        _size = 0;
+        _modCount++;
+    }
+
+    public int getModCount() {
+        return _modCount;
+    }
+
+    /**
+     * @return Every packed position we hold, in no particular order.
+     */
+    public long[] toArray() {
+        long[] result = new long[_size];
+        int[] i = {0};
+        _columns.forEachValue(column -> {
+            for (Section section : column.sections) {
+                section.positions.forEach(pos -> result[i[0]++] = pos);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Adds every position we hold to `result`, in no particular order.
+     */
+    public void addAllTo(Collection<BlockPos> result) {
+        _columns.forEachValue(column -> {
+            for (Section section : column.sections) {
+                section.addAllTo(result);
+            }
+        });
+    }
+
+    public boolean anyMatch(Predicate<BlockPos> isValid) {
+        PrimitiveIterator.OfLong columns = _columns.keyIterator();
+        while (columns.hasNext()) {
+            for (Section section : _columns.get(columns.nextLong()).sections) {
+                PrimitiveIterator.OfLong positions = section.positions.keyIterator();
+                while (positions.hasNext()) {
+                    if (isValid.test(BlockPos.fromLong(positions.nextLong()))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the position with the lowest score.
+     *
+     * @param origin   Where we measure from
+     * @param metric   How positions are scored
+     * @param isValid  Only positions passing this filter are considered. Must not modify this index.
+     * @param maxScore Only positions scoring strictly below this are considered. Lets a caller chain several indices.
+     * @return The best position, or null if none passed.
+     */
+    public BlockPos getNearest(Vec3d origin, DistanceMetric metric, Predicate<BlockPos> isValid, double maxScore) {
+        NearestSearch search = new NearestSearch(origin, metric, isValid, maxScore);
+        walkOutward(origin, search);
+        return search.best;
+    }
+
+    /**
+     * Finds up to `k` positions with the lowest scores, best first.
+     */
+    public List<BlockPos> getNearest(Vec3d origin, int k, DistanceMetric metric, Predicate<BlockPos> isValid) {
+        if (k <= 0) return Collections.emptyList();
+        KNearestSearch search = new KNearestSearch(origin, k, metric, isValid);
+        walkOutward(origin, search);
+        return search.getResult();
+    }
+
+    /**
+     * Finds up to `k` positions with the lowest scores across several indices at once, best first.
+     * <p>
+     * All indices share one search, so once the first few have filled it up the rest only look at columns
+     * that could still get in.
+     */
+    public static List<BlockPos> getNearest(Collection<SectionBucketIndex> indices, Vec3d origin, int k, DistanceMetric metric, Predicate<BlockPos> isValid) {
+        if (k <= 0) return Collections.emptyList();
+        KNearestSearch search = new KNearestSearch(origin, k, metric, isValid);
+        for (SectionBucketIndex index : indices) {
+            index.walkOutward(origin, search);
+        }
+        return search.getResult();
+    }
+
+    /**
+     * Finds every position whose center lies within `range` of `origin`, in no particular order.
+     */
+    public List<BlockPos> getWithinRange(Vec3d origin, double range, Predicate<BlockPos> isValid) {
+        RangeSearch search = new RangeSearch(origin, range, isValid);
+        walkOutward(origin, search);
+        return search.result;
+    }
+
+    private void walkOutward(Vec3d origin, Search search) {
+        if (_columns.isEmpty()) return;
+        int originChunkX = ((int) Math.floor(origin.x)) >> 4,
+                originChunkZ = ((int) Math.floor(origin.z)) >> 4;
+        int maxRing = Math.max(
+                Math.max(Math.abs(originChunkX - _minChunkX), Math.abs(_maxChunkX - originChunkX)),
+                Math.max(Math.abs(originChunkZ - _minChunkZ), Math.abs(_maxChunkZ - originChunkZ))
+        );
+        long ringCells = (2L * maxRing + 1) * (2L * maxRing + 1);
+        if (ringCells > (long) SPARSE_WALK_FACTOR * _columns.size()) {
+            walkSorted(origin, search);
+        } else {
+            walkRings(origin, originChunkX, originChunkZ, maxRing, search);
+        }
+    }
+
+    private void walkRings(Vec3d origin, int originChunkX, int originChunkZ, int maxRing, Search search) {
+        int remaining = _columns.size();
+        for (int ring = 0; ring <= maxRing && remaining > 0; ++ring) {
+            // Every column in this ring is at least this far away horizontally.
+            double ringDistance = ring == 0 ? 0 : (ring - 1) * 16 + 0.5;
+            if (!search.wantsDistance(ringDistance)) return;
+            if (ring == 0) {
+                remaining -= visitColumn(origin, originChunkX, originChunkZ, search);
+                continue;
+            }
+            for (int dx = -ring; dx <= ring; ++dx) {
+                remaining -= visitColumn(origin, originChunkX + dx, originChunkZ - ring, search);
+                remaining -= visitColumn(origin, originChunkX + dx, originChunkZ + ring, search);
+            }
+            for (int dz = -ring + 1; dz <= ring - 1; ++dz) {
+                remaining -= visitColumn(origin, originChunkX - ring, originChunkZ + dz, search);
+                remaining -= visitColumn(origin, originChunkX + ring, originChunkZ + dz, search);
+            }
+        }
+    }
+
+    // Returns 1 if there was a column here, 0 otherwise.
+    private int visitColumn(Vec3d origin, int chunkX, int chunkZ, Search search) {
+        Column column = _columns.get(ChunkPos.toLong(chunkX, chunkZ));
+        if (column == null) return 0;
+        if (search.wantsDistance(column.horizontalDistance(origin))) {
+            search.visit(column);
+        }
+        return 1;
+    }
+
+    private void walkSorted(Vec3d origin, Search search) {
+        Column[] columns = new Column[_columns.size()];
+        int[] index = {0};
+        _columns.forEachValue(column -> columns[index[0]++] = column);
+        double[] distances = new double[columns.length];
+        Integer[] order = new Integer[columns.length];
+        for (int i = 0; i < columns.length; ++i) {
+            distances[i] = columns[i].horizontalDistance(origin);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> distances[i]));
+        for (int i : order) {
+            if (!search.wantsDistance(distances[i])) return;
+            search.visit(columns[i]);
+        }
+    }
+
+    private abstract static class Search {
+        /**
+         * @param horizontalDistance The closest (horizontally) a position in the next column could be
+         * @return false if nothing that far away could matter to us, which ends the search.
+         */
+        abstract boolean wantsDistance(double horizontalDistance);
+
+        abstract void visit(Column column);
+    }
+
+    private static class NearestSearch extends Search {
+        private final Vec3d _origin;
+        private final DistanceMetric _metric;
+        private final Predicate<BlockPos> _isValid;
+        public BlockPos best;
+        private double _bestScore;
+
+        public NearestSearch(Vec3d origin, DistanceMetric metric, Predicate<BlockPos> isValid, double maxScore) {
+            _origin = origin;
+            _metric = metric;
+            _isValid = isValid;
+            _bestScore = maxScore;
+        }
+
+        @Override
+        boolean wantsDistance(double horizontalDistance) {
+            return _metric.lowerBound(horizontalDistance) < _bestScore;
+        }
+
+        @Override
+        void visit(Column column) {
+            for (Section section : column.sections) {
+                PrimitiveIterator.OfLong positions = section.positions.keyIterator();
+                while (positions.hasNext()) {
+                    long packed = positions.nextLong();
+                    double score = _metric.score(_origin, BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed), BlockPos.unpackLongZ(packed));
+                    if (score >= _bestScore) continue;
+                    BlockPos pos = BlockPos.fromLong(packed);
+                    if (_isValid.test(pos)) {
+                        _bestScore = score;
+                        best = pos;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class KNearestSearch extends Search {
+        private final Vec3d _origin;
+        private final int _k;
+        private final DistanceMetric _metric;
+        private final Predicate<BlockPos> _isValid;
+        // Worst of our current best on top, so it's the one that gets kicked out.
+        private final PriorityQueue<Scored> _best;
+
+        public KNearestSearch(Vec3d origin, int k, DistanceMetric metric, Predicate<BlockPos> isValid) {
+            _origin = origin;
+            _k = k;
+            _metric = metric;
+            _isValid = isValid;
+            _best = new PriorityQueue<>(Math.min(k, 64) + 1, (left, right) -> Double.compare(right.score, left.score));
+        }
+
+        @Override
+        boolean wantsDistance(double horizontalDistance) {
+            return _best.size() < _k || _metric.lowerBound(horizontalDistance) < _best.peek().score;
+        }
+
+        @Override
+        void visit(Column column) {
+            for (Section section : column.sections) {
+                PrimitiveIterator.OfLong positions = section.positions.keyIterator();
+                while (positions.hasNext()) {
+                    long packed = positions.nextLong();
+                    double score = _metric.score(_origin, BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed), BlockPos.unpackLongZ(packed));
+                    if (_best.size() >= _k && score >= _best.peek().score) continue;
+                    BlockPos pos = BlockPos.fromLong(packed);
+                    if (!_isValid.test(pos)) continue;
+                    _best.add(new Scored(pos, score));
+                    if (_best.size() > _k) {
+                        _best.poll();
+                    }
+                }
+            }
+        }
+
+        public List<BlockPos> getResult() {
+            BlockPos[] result = new BlockPos[_best.size()];
+            for (int i = result.length - 1; i >= 0; --i) {
+                result[i] = _best.poll().pos;
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        }
+    }
+
+    private static class RangeSearch extends Search {
+        private final Vec3d _origin;
+        private final double _range;
+        private final double _rangeSq;
+        private final Predicate<BlockPos> _isValid;
+        public final List<BlockPos> result = new ArrayList<>();
+
+        public RangeSearch(Vec3d origin, double range, Predicate<BlockPos> isValid) {
+            _origin = origin;
+            _range = range;
+            _rangeSq = range * range;
+            _isValid = isValid;
+        }
+
+        @Override
+        boolean wantsDistance(double horizontalDistance) {
+            return horizontalDistance <= _range;
+        }
+
+        @Override
+        void visit(Column column) {
+            for (Section section : column.sections) {
+                // Skip whole sections that are vertically out of range
+                int minY = section.sectionY << 4;
+                double dy = Math.max(0, Math.max(minY + 0.5 - _origin.y, _origin.y - (minY + 15.5)));
+                if (dy > _range) continue;
+                PrimitiveIterator.OfLong positions = section.positions.keyIterator();
+                while (positions.hasNext()) {
+                    long packed = positions.nextLong();
+                    if (DistanceMetric.SQUARED_DISTANCE.score(_origin, BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed), BlockPos.unpackLongZ(packed)) > _rangeSq) {
+                        continue;
+                    }
+                    BlockPos pos = BlockPos.fromLong(packed);
+                    if (_isValid.test(pos)) {
+                        result.add(pos);
+                    }
+                }
+            }
+        }
+    }
+
+    private record Scored(BlockPos pos, double score) {
+    }
+
+    private static class Section {
+        public final int sectionY;
+        public final LongHashSet positions = new LongHashSet(8);
+
+        public Section(int sectionY) {
+            this.sectionY = sectionY;
+        }
+
+        public void addAllTo(Collection<BlockPos> result) {
+            PrimitiveIterator.OfLong iterator = positions.keyIterator();
+            while (iterator.hasNext()) {
+                result.add(BlockPos.fromLong(iterator.nextLong()));
+            }
+        }
+    }
+
+    private static class Column {
+        public final int chunkX, chunkZ;
+        // Usually only a few sections per column have anything we care about, so a list beats a map here.
+        public final List<Section> sections = new ArrayList<>(2);
+
+        public Column(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        public boolean add(BlockPos pos) {
+            Section section = getSection(pos.getY() >> 4);
+            if (section == null) {
+                section = new Section(pos.getY() >> 4);
+                sections.add(section);
+            }
+            return section.positions.add(pos.asLong());
+        }
+
+        public boolean remove(BlockPos pos) {
+            Section section = getSection(pos.getY() >> 4);
+            if (section == null || !section.positions.remove(pos.asLong())) return false;
+            if (section.positions.isEmpty()) {
+                sections.remove(section);
+            }
+            return true;
+        }
+
+        public boolean contains(BlockPos pos) {
+            Section section = getSection(pos.getY() >> 4);
+            return section != null && section.positions.contains(pos.asLong());
+        }
+
+        public boolean isEmpty() {
+            return sections.isEmpty();
+        }
+
+        public double horizontalDistance(Vec3d origin) {
+            int minX = chunkX << 4,
+                    minZ = chunkZ << 4;
+            double dx = Math.max(0, Math.max(minX + 0.5 - origin.x, origin.x - (minX + 15.5)));
+            double dz = Math.max(0, Math.max(minZ + 0.5 - origin.z, origin.z - (minZ + 15.5)));
+            return Math.max(dx, dz);
+        }
+
+        private Section getSection(int sectionY) {
+            for (Section section : sections) {
+                if (section.sectionY == sectionY) return section;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package adris.altoclef.trackers.spatial;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Finds the closest matching block around a point by looking at the world directly, closest shells first.
+ * <p>
+ * Shell `k` is every block exactly `k` blocks (chebyshev) from the block the origin is in. Nothing in shell `k + 1`
+ * or further can be closer than `k + 0.5`, so once we've found something closer than that we're done.
+ * Usually the answer is a few blocks away and we look at a few hundred blocks instead of the whole cube.
+ * <p>
+ * Block states are read straight out of chunk sections with one mutable cursor, and we only read blocks that could
+ * still beat the best one so far.
+ * <p>
+ * Gives exactly what checking every block in the cube would: the block whose center is closest (squared distance,
+ * strictly less than `range`), ties going to the lowest x, then y, then z.
+ */
+public class ShellSearch {
+
+    /**
+     * @param target Which states we're looking for
+     * @param skip   Packed positions ({@link BlockPos#asLong()}) to ignore entirely
+     * @return The closest matching block, or null if there isn't one in range.
+     */
+    public static BlockPos findNearest(World world, Vec3d origin, double range, Predicate<BlockState> target, LongPredicate skip) {
+        int originX = (int) Math.floor(origin.x),
+                originY = (int) Math.floor(origin.y),
+                originZ = (int) Math.floor(origin.z);
+        // Same bounds as the full cube, so we never return anything it wouldn't.
+        int minX = (int) Math.floor(origin.x - range), maxX = (int) Math.floor(origin.x + range),
+                minY = (int) Math.floor(origin.y - range), maxY = (int) Math.floor(origin.y + range),
+                minZ = (int) Math.floor(origin.z - range), maxZ = (int) Math.floor(origin.z + range);
+        double rangeSq = range * range;
+
+        BlockReader reader = new BlockReader(world);
+        BlockPos.Mutable cursor = new BlockPos.Mutable();
+        StateMatcher matcher = new StateMatcher(target);
+
+        boolean found = false;
+        int bestX = 0, bestY = 0, bestZ = 0;
+        double bestSq = Double.POSITIVE_INFINITY;
+
+        // Shell k is at least k - 0.5 away.
+        for (int k = 0; k - 0.5 < range; ++k) {
+            for (int dx = -k; dx <= k; ++dx) {
+                int x = originX + dx;
+                if (x < minX || x > maxX) continue;
+                boolean edgeX = dx == -k || dx == k;
+                for (int dy = -k; dy <= k; ++dy) {
+                    int y = originY + dy;
+                    if (y < minY || y > maxY) continue;
+                    // Inside the shell we only want the two z faces, unless we're already on an x or y face.
+                    boolean fullRow = edgeX || dy == -k || dy == k;
+                    int step = fullRow || k == 0 ? 1 : 2 * k;
+                    for (int dz = -k; dz <= k; dz += step) {
+                        int z = originZ + dz;
+                        if (z < minZ || z > maxZ) continue;
+
+                        double ox = x + 0.5 - origin.x,
+                                oy = y + 0.5 - origin.y,
+                                oz = z + 0.5 - origin.z;
+                        double sq = ox * ox + oy * oy + oz * oz;
+                        if (sq >= rangeSq || sq > bestSq) continue;
+                        if (sq == bestSq && !lexicographicallyBefore(x, y, z, bestX, bestY, bestZ)) continue;
+
+                        cursor.set(x, y, z);
+                        if (skip.test(cursor.asLong())) continue;
+                        if (!matcher.matches(reader.get(cursor))) continue;
+
+                        found = true;
+                        bestSq = sq;
+                        bestX = x;
+                        bestY = y;
+                        bestZ = z;
+                    }
+                }
+            }
+            // Nothing further out can get to or below k + 0.5.
+            double nextShell = k + 0.5;
+            if (found && bestSq < nextShell * nextShell) break;
+        }
+        return found ? new BlockPos(bestX, bestY, bestZ) : null;
+    }
+
+    private static boolean lexicographicallyBefore(int x, int y, int z, int otherX, int otherY, int otherZ) {
+        if (x != otherX) return x < otherX;
+        if (y != otherY) return y < otherY;
+        return z < otherZ;
+    }
+
+    /**
+     * Reads states out of chunk sections, holding on to the last chunk since we tend to stay in one.
+     * Falls back to the world for anything outside a loaded chunk or the build height, so we see what it would.
+     */
+    private static class BlockReader {
+        private final World _world;
+        private long _chunkKey = Long.MAX_VALUE;
+        private Chunk _chunk;
+
+        public BlockReader(World world) {
+            _world = world;
+        }
+
+        public BlockState get(BlockPos.Mutable pos) {
+            int chunkX = pos.getX() >> 4,
+                    chunkZ = pos.getZ() >> 4;
+            long key = ChunkPos.toLong(chunkX, chunkZ);
+            if (key != _chunkKey) {
+                _chunkKey = key;
+                _chunk = _world.getChunkManager().isChunkLoaded(chunkX, chunkZ) ? _world.getChunk(chunkX, chunkZ) : null;
+            }
+            if (_chunk == null || pos.getY() < _chunk.getBottomY() || pos.getY() >= _chunk.getTopY()) {
+                return _world.getBlockState(pos);
+            }
+            ChunkSection section = _chunk.getSectionArray()[_chunk.getSectionIndex(pos.getY())];
+            return section.getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+        }
+    }
+}
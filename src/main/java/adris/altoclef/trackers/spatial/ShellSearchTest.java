@@ -0,0 +1,114 @@
+package adris.altoclef.trackers.spatial;
+
+import adris.altoclef.util.collections.LongHashSet;
+import adris.altoclef.util.helpers.HarnessHelper;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Compares {@link ShellSearch} with the full cube search it replaced, around the player in whatever world we're in.
+ * <p>
+ * Targets go from everywhere (stone, air) to probably nowhere (diamond ore), so both the early out and the whole
+ * cube get checked. Each search is redone a few times skipping what it found last, so ties and the skip check get
+ * exercised too.
+ * <p>
+ * Needs a world, so run it in game (`@test shells`).
+ */
+public class ShellSearchTest {
+
+    private static final HarnessHelper HARNESS = new HarnessHelper("ShellSearch");
+    private static final int ORIGINS = 200;
+    private static final int SKIP_ROUNDS = 3;
+
+    private static final List<Set<Block>> TARGETS = List.of(
+            Set.of(Blocks.STONE),
+            Set.of(Blocks.AIR),
+            Set.of(Blocks.DIRT, Blocks.GRASS_BLOCK),
+            Set.of(Blocks.WATER),
+            Set.of(Blocks.COAL_ORE, Blocks.IRON_ORE),
+            Set.of(Blocks.OAK_LOG, Blocks.BIRCH_LOG, Blocks.SPRUCE_LOG),
+            Set.of(Blocks.DIAMOND_ORE)
+    );
+
+    public static void test(World world, Vec3d center) {
+        Random random = new Random(99);
+        int searches = 0, found = 0;
+        for (int i = 0; i < ORIGINS; ++i) {
+            // Off the block grid on purpose, ties and the half block offsets are where this goes wrong.
+            Vec3d origin = center.add(random.nextInt(64) - 32 + random.nextInt(3) * 0.5, random.nextInt(32) - 16 + random.nextInt(3) * 0.5, random.nextInt(64) - 32 + random.nextInt(3) * 0.5);
+            double range = 1 + random.nextInt(24) + (random.nextBoolean() ? 0.5 : 0);
+            for (Set<Block> blocks : TARGETS) {
+                Predicate<BlockState> target = state -> blocks.contains(state.getBlock());
+                LongHashSet skipped = new LongHashSet();
+                for (int round = 0; round < SKIP_ROUNDS; ++round) {
+                    BlockPos expected = searchCube(world, origin, range, target, skipped::contains);
+                    BlockPos actual = ShellSearch.findNearest(world, origin, range, target, skipped::contains);
+                    HARNESS.check(expected == null ? actual == null : expected.equals(actual), "shell search finds the same block as the cube around " + origin + " in range " + range + " for " + blocks + ", expected " + expected, actual);
+                    searches++;
+                    if (expected == null) break;
+                    found++;
+                    skipped.add(expected.asLong());
+                }
+            }
+        }
+        HARNESS.passed(searches + " searches, " + found + " found something");
+
+        benchmark(world, center);
+    }
+
+    // How it used to be done: read every block in the cube.
+    private static BlockPos searchCube(World world, Vec3d pos, double range, Predicate<BlockState> target, LongPredicate skip) {
+        int minX = (int) Math.floor(pos.x - range),
+                maxX = (int) Math.floor(pos.x + range),
+                minY = (int) Math.floor(pos.y - range),
+                maxY = (int) Math.floor(pos.y + range),
+                minZ = (int) Math.floor(pos.z - range),
+                maxZ = (int) Math.floor(pos.z + range);
+        double closestDistance = Float.POSITIVE_INFINITY;
+        BlockPos nearest = null;
+        for (int x = minX; x <= maxX; ++x) {
+            for (int y = minY; y <= maxY; ++y) {
+                for (int z = minZ; z <= maxZ; ++z) {
+                    BlockPos check = new BlockPos(x, y, z);
+                    if (skip.test(check.asLong())) continue;
+                    if (!target.test(world.getBlockState(check))) continue;
+                    if (check.isWithinDistance(pos, range)) {
+                        double sq = check.getSquaredDistance(pos);
+                        if (sq < closestDistance) {
+                            closestDistance = sq;
+                            nearest = check;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private static void benchmark(World world, Vec3d center) {
+        LongPredicate skipNothing = pos -> false;
+        for (Block block : new Block[]{Blocks.STONE, Blocks.IRON_ORE, Blocks.DIAMOND_ORE}) {
+            Predicate<BlockState> target = state -> state.getBlock() == block;
+            for (double range : new double[]{8, 32}) {
+                double cubeNanos = HarnessHelper.time(50, i -> found(searchCube(world, center, range, target, skipNothing)));
+                double shellNanos = HarnessHelper.time(50, i -> found(ShellSearch.findNearest(world, center, range, target, skipNothing)));
+                HARNESS.log("%s in range %.0f, cube %.1fus, shells %.1fus (%.1fx)",
+                        block, range, cubeNanos / 1000, shellNanos / 1000, cubeNanos / shellNanos);
+            }
+        }
+    }
+
+    private static long found(BlockPos pos) {
+        return pos == null ? 0 : pos.asLong();
+    }
+}
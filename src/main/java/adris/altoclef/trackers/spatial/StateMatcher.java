@@ -0,0 +1,30 @@
+package adris.altoclef.trackers.spatial;
+
+import net.minecraft.block.BlockState;
+
+import java.util.function.Predicate;
+
+/**
+ * Runs a state predicate, remembering the answer for the last state it saw.
+ * <p>
+ * Neighbouring blocks are usually the same state, so a scan going block by block only really tests when the state
+ * changes. One per scan, it's not thread safe.
+ */
+class StateMatcher {
+
+    private final Predicate<BlockState> _target;
+    private BlockState _lastState;
+    private boolean _lastMatched;
+
+    public StateMatcher(Predicate<BlockState> target) {
+        _target = target;
+    }
+
+    public boolean matches(BlockState state) {
+        if (state != _lastState) {
+            _lastState = state;
+            _lastMatched = _target.test(state);
+        }
+        return _lastMatched;
+    }
+}
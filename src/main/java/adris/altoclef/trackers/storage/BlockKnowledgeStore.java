@@ -0,0 +1,225 @@
+package adris.altoclef.trackers.storage;
+
+import adris.altoclef.Debug;
+import adris.altoclef.util.collections.Long2ObjectHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Remembers where blocks are in chunks we've left, on disk, for one server and dimension.
+ * <p>
+ * Regions (32x32 chunks) are read in as the player gets near them and written back out (if anything changed)
+ * once the player is far away or we leave the world. All file access happens on one background thread, in order,
+ * so a region being written out is never read back half finished. Everything else happens on the client thread.
+ * <p>
+ * Whatever we hand back is only what was there the last time we saw the chunk. Callers should check it again
+ * once the chunk loads.
+ */
+public class BlockKnowledgeStore {
+
+    // One thread so reads and writes of the same region can't overtake each other.
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AltoClef Block Store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @FunctionalInterface
+    public interface ChunkVisitor {
+        void visit(ChunkPos chunk, Block block, long[] positions);
+    }
+
+    private final File _folder;
+
+    private final Long2ObjectHashMap<Region> _regions = new Long2ObjectHashMap<>();
+    // Regions the IO thread finished reading, waiting for the client thread.
+    private final ConcurrentLinkedQueue<LoadedRegion> _loaded = new ConcurrentLinkedQueue<>();
+
+    public BlockKnowledgeStore(File folder) {
+        _folder = folder;
+    }
+
+    /**
+     * Starts reading regions within `loadRadius` regions of `origin`, writes out and forgets regions further
+     * than `loadRadius + 1`, and passes everything that finished loading since last time to `onLoaded`.
+     */
+    public void update(Vec3d origin, int loadRadius, ChunkVisitor onLoaded) {
+        LoadedRegion loaded;
+        while ((loaded = _loaded.poll()) != null) {
+            Region region = _regions.get(loaded.key());
+            // Forgotten again before it finished loading.
+            if (region == null || region.chunks != null) continue;
+            region.finishLoading(loaded.chunks());
+            region.forEach(onLoaded);
+        }
+
+        int centerX = BlockRegionFile.regionOf((int) Math.floor(origin.x) >> 4),
+                centerZ = BlockRegionFile.regionOf((int) Math.floor(origin.z) >> 4);
+        for (int regionX = centerX - loadRadius; regionX <= centerX + loadRadius; ++regionX) {
+            for (int regionZ = centerZ - loadRadius; regionZ <= centerZ + loadRadius; ++regionZ) {
+                getOrLoad(regionX, regionZ);
+            }
+        }
+
+        List<Long> toForget = new ArrayList<>();
+        _regions.forEach((key, region) -> {
+            if (Math.max(Math.abs(region.x - centerX), Math.abs(region.z - centerZ)) > loadRadius + 1) {
+                toForget.add(key);
+            }
+        });
+        for (long key : toForget) {
+            Region region = _regions.remove(key);
+            save(region);
+        }
+    }
+
+    /**
+     * Replaces what we remember about some block types in a chunk.
+     *
+     * @param types Every type the chunk was checked for. Types missing from `found` are remembered as absent.
+     * @param found Positions ({@link net.minecraft.util.math.BlockPos#asLong()}) of the types that were found
+     */
+    public void rememberChunk(ChunkPos chunk, Collection<Block> types, Map<Block, long[]> found) {
+        Region region = getOrLoad(BlockRegionFile.regionOf(chunk.x), BlockRegionFile.regionOf(chunk.z));
+        if (region.chunks == null) {
+            // Still reading the region, apply this on top once it's in.
+            region.pendingUpdates.add(new ChunkUpdate(chunk.toLong(), Set.copyOf(types), Map.copyOf(found)));
+        } else {
+            region.apply(chunk.toLong(), types, found);
+        }
+    }
+
+    /**
+     * Passes every position we remember for `block` in regions we have loaded.
+     */
+    public void forEachRemembered(Block block, ChunkVisitor visitor) {
+        _regions.forEachValue(region -> {
+            if (region.chunks == null) return;
+            region.chunks.forEach((key, types) -> {
+                long[] positions = types.get(block);
+                if (positions != null) {
+                    visitor.visit(new ChunkPos(key), block, positions);
+                }
+            });
+        });
+    }
+
+    /**
+     * Writes out everything that changed and forgets all regions.
+     */
+    public void close() {
+        _regions.forEachValue(this::save);
+        _regions.clear();
+        _loaded.clear();
+    }
+
+    private Region getOrLoad(int regionX, int regionZ) {
+        long key = ChunkPos.toLong(regionX, regionZ);
+        Region region = _regions.get(key);
+        if (region == null) {
+            region = new Region(regionX, regionZ);
+            _regions.put(key, region);
+            File file = new File(_folder, BlockRegionFile.fileName(regionX, regionZ));
+            IO.execute(() -> {
+                Long2ObjectHashMap<Map<Block, long[]>> chunks = new Long2ObjectHashMap<>();
+                if (file.exists()) {
+                    try {
+                        chunks = BlockRegionFile.read(file, regionX, regionZ);
+                    } catch (IOException e) {
+                        Debug.logWarning("Failed to read remembered blocks from " + file + ", starting that region over.");
+                        e.printStackTrace();
+                    }
+                }
+                _loaded.add(new LoadedRegion(key, chunks));
+            });
+        }
+        return region;
+    }
+
+    private void save(Region region) {
+        // Never finished loading, so there's nothing new to write. Anything pending is lost, which is fine.
+        if (region.chunks == null || !region.dirty) return;
+        byte[] data;
+        try {
+            data = BlockRegionFile.encode(region.chunks);
+        } catch (IOException e) {
+            Debug.logWarning("Failed to save remembered blocks for region " + region.x + ", " + region.z);
+            e.printStackTrace();
+            return;
+        }
+        region.dirty = false;
+        File file = new File(_folder, BlockRegionFile.fileName(region.x, region.z));
+        IO.execute(() -> {
+            try {
+                BlockRegionFile.write(file, data);
+            } catch (IOException e) {
+                Debug.logWarning("Failed to write remembered blocks to " + file);
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private record LoadedRegion(long key, Long2ObjectHashMap<Map<Block, long[]>> chunks) {
+    }
+
+    private record ChunkUpdate(long chunk, Set<Block> types, Map<Block, long[]> found) {
+    }
+
+    private static class Region {
+        public final int x, z;
+        // Null until the file has been read.
+        public Long2ObjectHashMap<Map<Block, long[]>> chunks;
+        public final List<ChunkUpdate> pendingUpdates = new ArrayList<>();
+        public boolean dirty;
+
+        public Region(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        public void finishLoading(Long2ObjectHashMap<Map<Block, long[]>> loaded) {
+            chunks = loaded;
+            for (ChunkUpdate update : pendingUpdates) {
+                apply(update.chunk(), update.types(), update.found());
+            }
+            pendingUpdates.clear();
+        }
+
+        public void apply(long chunk, Collection<Block> types, Map<Block, long[]> found) {
+            Map<Block, long[]> remembered = chunks.get(chunk);
+            if (remembered == null) {
+                remembered = new HashMap<>();
+                chunks.put(chunk, remembered);
+            }
+            for (Block block : types) {
+                long[] positions = found.get(block);
+                if (positions == null || positions.length == 0) {
+                    if (remembered.remove(block) != null) dirty = true;
+                } else {
+                    remembered.put(block, positions);
+                    dirty = true;
+                }
+            }
+            if (remembered.isEmpty()) {
+                chunks.remove(chunk);
+            }
+        }
+
+        public void forEach(ChunkVisitor visitor) {
+            chunks.forEach((key, types) -> {
+                ChunkPos pos = new ChunkPos(key);
+                for (Map.Entry<Block, long[]> entry : types.entrySet()) {
+                    visitor.visit(pos, entry.getKey(), entry.getValue());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package adris.altoclef.trackers.storage;
+
+import adris.altoclef.util.collections.Long2ObjectHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes the block positions we remember for one region (32x32 chunks), like Minecraft's own region files.
+ * <p>
+ * Layout (gzipped):
+ * <pre>
+ * int magic, int version
+ * int paletteSize, then that many block ids (UTF)
+ * int chunkCount, then per chunk:
+ *     short localChunk (x | z << 5), short typeCount, then per type:
+ *         short paletteIndex, int count, then per position: byte localXZ (x | z << 4), short y
+ * </pre>
+ * A position costs 3 bytes before compression. Blocks that don't exist anymore (removed by an update or a mod)
+ * are skipped on load.
+ */
+public class BlockRegionFile {
+
+    public static final int REGION_SHIFT = 5;
+
+    private static final int MAGIC = 0x41434B42;
+    private static final int VERSION = 1;
+
+    public static int regionOf(int chunkCoord) {
+        return chunkCoord >> REGION_SHIFT;
+    }
+
+    public static String fileName(int regionX, int regionZ) {
+        return "r." + regionX + "." + regionZ + ".acb";
+    }
+
+    /**
+     * @return For every chunk key ({@link ChunkPos#toLong}), the positions of every block type we remember there.
+     */
+    public static Long2ObjectHashMap<Map<Block, long[]>> read(File file, int regionX, int regionZ) throws IOException {
+        Long2ObjectHashMap<Map<Block, long[]>> result = new Long2ObjectHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a block region file: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported block region file version " + version + ": " + file);
+
+            Block[] palette = new Block[in.readInt()];
+            for (int i = 0; i < palette.length; ++i) {
+                Identifier id = Identifier.tryParse(in.readUTF());
+                palette[i] = (id != null && Registries.BLOCK.containsId(id)) ? Registries.BLOCK.get(id) : null;
+            }
+
+            int chunkCount = in.readInt();
+            for (int c = 0; c < chunkCount; ++c) {
+                int localChunk = in.readShort();
+                int chunkX = (regionX << REGION_SHIFT) + (localChunk & 31),
+                        chunkZ = (regionZ << REGION_SHIFT) + ((localChunk >> REGION_SHIFT) & 31);
+                Map<Block, long[]> types = new HashMap<>();
+                int typeCount = in.readShort();
+                for (int t = 0; t < typeCount; ++t) {
+                    Block block = palette[in.readShort()];
+                    long[] positions = new long[in.readInt()];
+                    for (int i = 0; i < positions.length; ++i) {
+                        int localXZ = in.readByte() & 0xFF;
+                        int y = in.readShort();
+                        positions[i] = BlockPos.asLong((chunkX << 4) + (localXZ & 15), y, (chunkZ << 4) + (localXZ >> 4));
+                    }
+                    if (block != null) {
+                        types.put(block, positions);
+                    }
+                }
+                result.put(ChunkPos.toLong(chunkX, chunkZ), types);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a region. Done on the caller's thread so the result can be written out anywhere.
+     */
+    public static byte[] encode(Long2ObjectHashMap<Map<Block, long[]>> chunks) throws IOException {
+        Map<Block, Integer> paletteIndex = new HashMap<>();
+        List<Block> palette = new ArrayList<>();
+        chunks.forEachValue(types -> {
+            for (Block block : types.keySet()) {
+                if (!paletteIndex.containsKey(block)) {
+                    paletteIndex.put(block, palette.size());
+                    palette.add(block);
+                }
+            }
+        });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(bytes)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(palette.size());
+            for (Block block : palette) {
+                out.writeUTF(Registries.BLOCK.getId(block).toString());
+            }
+            out.writeInt(chunks.size());
+            PrimitiveIterator.OfLong keys = chunks.keyIterator();
+            while (keys.hasNext()) {
+                long key = keys.nextLong();
+                Map<Block, long[]> types = chunks.get(key);
+                out.writeShort((ChunkPos.getPackedX(key) & 31) | ((ChunkPos.getPackedZ(key) & 31) << REGION_SHIFT));
+                out.writeShort(types.size());
+                for (Map.Entry<Block, long[]> entry : types.entrySet()) {
+                    out.writeShort(paletteIndex.get(entry.getKey()));
+                    out.writeInt(entry.getValue().length);
+                    for (long pos : entry.getValue()) {
+                        out.writeByte((BlockPos.unpackLongX(pos) & 15) | ((BlockPos.unpackLongZ(pos) & 15) << 4));
+                        out.writeShort(BlockPos.unpackLongY(pos));
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes to a temporary file first, so a crash halfway through never leaves a broken region behind.
+     */
+    public static void write(File file, byte[] data) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create " + parent);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -253,6 +253,12 @@ public class ContainerSubTracker extends Tracker {
         // umm lol
     }
 
+    @Override
+    protected boolean isInvalidatedEveryTick() {
+        // Everything here is kept up to date by events as it happens.
+        return false;
+    }
+
     @Override
     protected void reset() {
         for (Dimension key : _containerCaches.keySet()) {
@@ -1,5 +1,6 @@
 package adris.altoclef.trackers.storage;
 
+import adris.altoclef.eventbus.events.SlotClickChangedEvent;
 import adris.altoclef.trackers.Tracker;
 import adris.altoclef.trackers.TrackerManager;
 import adris.altoclef.util.helpers.ItemHelper;
@@ -20,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Keeps track of the player's inventory items
@@ -35,6 +37,8 @@ public class InventorySubTracker extends Tracker {
 
     public InventorySubTracker(TrackerManager manager) {
         super(manager);
+        // Clicking slots changes things mid tick.
+        invalidateOn(SlotClickChangedEvent.class);
     }
 
     private static boolean shouldIgnoreSlotForContainer(Slot slot) {
@@ -71,6 +75,19 @@ public class InventorySubTracker extends Tracker {
         return result;
     }
 
+    /**
+     * @return A copy of how many of each item is in the player's inventory, cursor included.
+     */
+    public Map<Item, Integer> getPlayerItemCounts() {
+        ensureUpdated();
+        HashMap<Item, Integer> result = new HashMap<>(_itemCountsPlayer);
+        ItemStack cursorStack = StorageHelper.getItemStackInCursorSlot();
+        if (!cursorStack.isEmpty()) {
+            result.merge(cursorStack.getItem(), cursorStack.getCount(), Integer::sum);
+        }
+        return result;
+    }
+
     public boolean hasItem(boolean playerInventoryOnly, Item... items) {
         ensureUpdated();
         ItemStack cursorStack = StorageHelper.getItemStackInCursorSlot();
@@ -15,6 +15,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -32,6 +33,7 @@ public class ItemStorageTracker extends Tracker {
         _inventory = new InventorySubTracker(manager);
         _containers = new ContainerSubTracker(manager);
         containerTrackerConsumer.accept(_containers);
+        dependsOn(_inventory, _containers);
     }
 
     private static Slot[] getCurrentConversionSlots() {
@@ -65,6 +67,13 @@ public class ItemStorageTracker extends Tracker {
         return _inventory.getItemCount(true, false, items) + inConversionSlots;
     }
 
+    /**
+     * @return A copy of how many of each item the player has (inventory and cursor, not conversion slots).
+     */
+    public Map<Item, Integer> getPlayerItemCounts() {
+        return _inventory.getPlayerItemCounts();
+    }
+
     public int getItemCount(ItemTarget... targets) {
         return Arrays.stream(targets).mapToInt(target -> getItemCount(target.getMatches())).reduce(0, Integer::sum);
     }
@@ -292,8 +301,13 @@ public class ItemStorageTracker extends Tracker {
 
     @Override
     protected void updateState() {
-        _inventory.updateState();
-        _containers.updateState();
+        // Nothing of our own, the sub trackers are dependencies and are brought up to date first.
+    }
+
+    @Override
+    protected boolean isInvalidatedEveryTick() {
+        // Dirtied along with the sub trackers.
+        return false;
     }
 
     @Override
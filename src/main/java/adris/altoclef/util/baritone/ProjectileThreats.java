@@ -0,0 +1,106 @@
+package adris.altoclef.util.baritone;
+
+import adris.altoclef.util.helpers.ProjectileHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.List;
+
+/**
+ * Where every projectile in flight gets closest to one point, worked out in one pass.
+ * <p>
+ * For each projectile we keep when it gets closest (ticks from now), how close that is and where it is then.
+ * Uses the exact closest approach from {@link ProjectileHelper#getClosestApproachTime}.
+ * <p>
+ * Pathing checks a lot of points and only needs a yes or no for each, so {@link #hitsWithin(CachedProjectile, double, double, double, double, double)}
+ * does one projectile against one point without keeping anything.
+ */
+public class ProjectileThreats {
+
+    // Solver scratch, one per thread since Baritone checks goals from its own threads too.
+    private static final ThreadLocal<double[]> ROOTS = ThreadLocal.withInitial(() -> new double[3]);
+
+    private final List<CachedProjectile> _projectiles;
+    private final double[] _times;
+    private final double[] _missDistancesSq;
+    private final double[] _closestX, _closestY, _closestZ;
+
+    private ProjectileThreats(List<CachedProjectile> projectiles) {
+        _projectiles = projectiles;
+        int size = projectiles.size();
+        _times = new double[size];
+        _missDistancesSq = new double[size];
+        _closestX = new double[size];
+        _closestY = new double[size];
+        _closestZ = new double[size];
+    }
+
+    public static ProjectileThreats evaluate(List<CachedProjectile> projectiles, Vec3d target) {
+        ProjectileThreats result = new ProjectileThreats(projectiles);
+        double[] roots = ROOTS.get();
+        for (int i = 0; i < projectiles.size(); ++i) {
+            CachedProjectile projectile = projectiles.get(i);
+            Vec3d p = projectile.position, v = projectile.velocity;
+            double g = projectile.gravity;
+            double rx = p.x - target.x, ry = p.y - target.y, rz = p.z - target.z;
+            double t = ProjectileHelper.getClosestApproachTime(rx, ry, rz, v.x, v.y, v.z, g, roots);
+            result._times[i] = t;
+            result._missDistancesSq[i] = ProjectileHelper.getDistanceSqAt(rx, ry, rz, v.x, v.y, v.z, g, t);
+            result._closestX[i] = p.x + v.x * t;
+            result._closestY[i] = p.y + v.y * t - 0.5 * g * t * t;
+            result._closestZ[i] = p.z + v.z * t;
+        }
+        return result;
+    }
+
+    public int size() {
+        return _projectiles.size();
+    }
+
+    public CachedProjectile getProjectile(int index) {
+        return _projectiles.get(index);
+    }
+
+    /**
+     * @return Ticks until the projectile is closest to the target. 0 if it's already moving away.
+     */
+    public double getTimeToImpact(int index) {
+        return _times[index];
+    }
+
+    public double getMissDistance(int index) {
+        return Math.sqrt(_missDistancesSq[index]);
+    }
+
+    public double getMissDistanceSq(int index) {
+        return _missDistancesSq[index];
+    }
+
+    /**
+     * @return Where the projectile is when it's closest to the target.
+     */
+    public Vec3d getClosestPoint(int index) {
+        return new Vec3d(_closestX[index], _closestY[index], _closestZ[index]);
+    }
+
+    /**
+     * @return Whether the projectile passes within these distances of the target, horizontally and vertically.
+     */
+    public boolean hitsWithin(int index, Vec3d target, double horizontal, double vertical) {
+        return isWithin(target.x - _closestX[index], target.y - _closestY[index], target.z - _closestZ[index], horizontal, vertical);
+    }
+
+    /**
+     * Same as evaluating and calling {@link #hitsWithin(int, Vec3d, double, double)}, for a single projectile and
+     * point, without allocating anything.
+     */
+    public static boolean hitsWithin(CachedProjectile projectile, double x, double y, double z, double horizontal, double vertical) {
+        Vec3d p = projectile.position, v = projectile.velocity;
+        double g = projectile.gravity;
+        double t = ProjectileHelper.getClosestApproachTime(p.x - x, p.y - y, p.z - z, v.x, v.y, v.z, g, ROOTS.get());
+        return isWithin(x - (p.x + v.x * t), y - (p.y + v.y * t - 0.5 * g * t * t), z - (p.z + v.z * t), horizontal, vertical);
+    }
+
+    private static boolean isWithin(double dx, double dy, double dz, double horizontal, double vertical) {
+        return dx * dx + dz * dz < horizontal * horizontal && Math.abs(dy) < vertical;
+    }
+}
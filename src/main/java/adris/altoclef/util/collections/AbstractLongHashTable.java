@@ -0,0 +1,219 @@
+package adris.altoclef.util.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Open addressing (linear probing) over primitive long keys, the shared bones of our long sets and maps.
+ * <p>
+ * Keys are stored as-is in a long[] so nothing gets boxed. 0 marks an empty slot, so the key 0 itself
+ * lives outside the table in its own slot (index `capacity`), which every subclass' value array has room for.
+ * Removal shifts later entries back instead of leaving tombstones, so lookups never slow down over time.
+ */
+abstract class AbstractLongHashTable {
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int MIN_CAPACITY = 16;
+
+    protected long[] _keys;
+    protected int _mask;
+    protected boolean _containsZero;
+    protected int _size;
+    private int _maxFill;
+
+    protected AbstractLongHashTable(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        _keys = new long[capacity];
+        _mask = capacity - 1;
+        _maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    protected static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @return The slot holding `key`, or -1 if we don't have it. Key 0 lives at slot `capacity`.
+     */
+    protected int slotOf(long key) {
+        if (key == 0) {
+            return _containsZero ? _keys.length : -1;
+        }
+        int slot = mix(key) & _mask;
+        long current;
+        while ((current = _keys[slot]) != 0) {
+            if (current == key) return slot;
+            slot = (slot + 1) & _mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot for `key`, claiming one if it isn't in here yet.
+     *
+     * @return The slot, or (-slot - 1) if it was just claimed. Call {@link #afterInsert()} once you've filled it.
+     */
+    protected int claimSlot(long key) {
+        if (key == 0) {
+            if (_containsZero) return _keys.length;
+            _containsZero = true;
+            return -_keys.length - 1;
+        }
+        int slot = mix(key) & _mask;
+        long current;
+        while ((current = _keys[slot]) != 0) {
+            if (current == key) return slot;
+            slot = (slot + 1) & _mask;
+        }
+        _keys[slot] = key;
+        return -slot - 1;
+    }
+
+    protected void afterInsert() {
+        if (++_size >= _maxFill) {
+            rehash(_keys.length * 2);
+        }
+    }
+
+    /**
+     * Empties a slot we know is in use.
+     */
+    protected void removeSlot(int slot) {
+        _size--;
+        if (slot == _keys.length) {
+            _containsZero = false;
+            clearValue(slot);
+            return;
+        }
+        // Shift back anything that probed past us, so there's never a gap in a probe chain.
+        int last;
+        long current;
+        while (true) {
+            slot = ((last = slot) + 1) & _mask;
+            while (true) {
+                if ((current = _keys[slot]) == 0) {
+                    _keys[last] = 0;
+                    clearValue(last);
+                    return;
+                }
+                int home = mix(current) & _mask;
+                if (last <= slot ? (last >= home || home > slot) : (last >= home && home > slot)) break;
+                slot = (slot + 1) & _mask;
+            }
+            _keys[last] = current;
+            moveValue(slot, last);
+        }
+    }
+
+    public void clear() {
+        if (_size == 0) return;
+        Arrays.fill(_keys, 0);
+        clearAllValues();
+        _containsZero = false;
+        _size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = _keys;
+        int oldCapacity = oldKeys.length;
+        int newMask = newCapacity - 1;
+        long[] newKeys = new long[newCapacity];
+        int[] moves = new int[oldCapacity + 1];
+        for (int i = 0; i < oldCapacity; ++i) {
+            long key = oldKeys[i];
+            moves[i] = -1;
+            if (key == 0) continue;
+            int slot = mix(key) & newMask;
+            while (newKeys[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newKeys[slot] = key;
+            moves[i] = slot;
+        }
+        // The zero key's slot moves to the end of the new table.
+        moves[oldCapacity] = newCapacity;
+        _keys = newKeys;
+        _mask = newMask;
+        _maxFill = (int) (newCapacity * LOAD_FACTOR);
+        rehashValues(newCapacity + 1, moves);
+    }
+
+    /**
+     * Iterates over the used slots. Don't modify the table while iterating.
+     */
+    protected int nextUsedSlot(int after) {
+        for (int slot = after + 1; slot < _keys.length; ++slot) {
+            if (_keys[slot] != 0) return slot;
+        }
+        if (after < _keys.length && _containsZero) return _keys.length;
+        return -1;
+    }
+
+    protected long keyAt(int slot) {
+        return slot == _keys.length ? 0 : _keys[slot];
+    }
+
+    /**
+     * Iterates our keys without boxing them. Don't modify the table while iterating.
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new PrimitiveIterator.OfLong() {
+            int _next = nextUsedSlot(-1);
+
+            @Override
+            public boolean hasNext() {
+                return _next != -1;
+            }
+
+            @Override
+            public long nextLong() {
+                if (_next == -1) throw new NoSuchElementException();
+                long key = keyAt(_next);
+                _next = nextUsedSlot(_next);
+                return key;
+            }
+        };
+    }
+
+    // Value hooks, sets don't need any of these.
+
+    protected void clearValue(int slot) {
+    }
+
+    protected void moveValue(int from, int to) {
+    }
+
+    protected void clearAllValues() {
+    }
+
+    /**
+     * @param newLength Length the value array should have now
+     * @param moves     For every old slot, where its value goes (-1 if the slot was empty)
+     */
+    protected void rehashValues(int newLength, int[] moves) {
+    }
+}
@@ -0,0 +1,102 @@
+package adris.altoclef.util.collections;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive longs to primitive ints, no boxing on either side.
+ */
+public class Long2IntHashMap extends AbstractLongHashTable {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private int[] _values;
+
+    public Long2IntHashMap() {
+        this(16);
+    }
+
+    public Long2IntHashMap(int expectedSize) {
+        super(expectedSize);
+        _values = new int[_keys.length + 1];
+    }
+
+    public int get(long key, int defaultValue) {
+        int slot = slotOf(key);
+        return slot < 0 ? defaultValue : _values[slot];
+    }
+
+    /**
+     * @return The previous value, or `defaultValue` if there wasn't one.
+     */
+    public int put(long key, int value, int defaultValue) {
+        int slot = claimSlot(key);
+        if (slot >= 0) {
+            int previous = _values[slot];
+            _values[slot] = value;
+            return previous;
+        }
+        _values[-slot - 1] = value;
+        afterInsert();
+        return defaultValue;
+    }
+
+    /**
+     * Adds `amount` to the value at `key`, treating a missing entry as 0.
+     *
+     * @return The new value
+     */
+    public int addTo(long key, int amount) {
+        int slot = claimSlot(key);
+        if (slot >= 0) {
+            return _values[slot] += amount;
+        }
+        _values[-slot - 1] = amount;
+        afterInsert();
+        return amount;
+    }
+
+    /**
+     * @return true if we had `key`.
+     */
+    public boolean remove(long key) {
+        int slot = slotOf(key);
+        if (slot < 0) return false;
+        removeSlot(slot);
+        return true;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = nextUsedSlot(-1); slot != -1; slot = nextUsedSlot(slot)) {
+            consumer.accept(keyAt(slot), _values[slot]);
+        }
+    }
+
+    @Override
+    protected void clearValue(int slot) {
+        _values[slot] = 0;
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        _values[to] = _values[from];
+    }
+
+    @Override
+    protected void clearAllValues() {
+        Arrays.fill(_values, 0);
+    }
+
+    @Override
+    protected void rehashValues(int newLength, int[] moves) {
+        int[] newValues = new int[newLength];
+        for (int i = 0; i < moves.length; ++i) {
+            if (moves[i] != -1) {
+                newValues[moves[i]] = _values[i];
+            }
+        }
+        _values = newValues;
+    }
+}
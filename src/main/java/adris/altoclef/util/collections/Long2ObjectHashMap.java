@@ -0,0 +1,99 @@
+package adris.altoclef.util.collections;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A map from primitive longs to objects, so keys like packed positions don't have to be boxed.
+ */
+@SuppressWarnings("unchecked")
+public class Long2ObjectHashMap<V> extends AbstractLongHashTable {
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private Object[] _values;
+
+    public Long2ObjectHashMap() {
+        this(16);
+    }
+
+    public Long2ObjectHashMap(int expectedSize) {
+        super(expectedSize);
+        _values = new Object[_keys.length + 1];
+    }
+
+    /**
+     * @return The value at `key`, or null if there isn't one.
+     */
+    public V get(long key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : (V) _values[slot];
+    }
+
+    /**
+     * @return The previous value, or null if there wasn't one.
+     */
+    public V put(long key, V value) {
+        int slot = claimSlot(key);
+        if (slot >= 0) {
+            V previous = (V) _values[slot];
+            _values[slot] = value;
+            return previous;
+        }
+        _values[-slot - 1] = value;
+        afterInsert();
+        return null;
+    }
+
+    /**
+     * @return The removed value, or null if there wasn't one.
+     */
+    public V remove(long key) {
+        int slot = slotOf(key);
+        if (slot < 0) return null;
+        V previous = (V) _values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+
+    public void forEach(EntryConsumer<V> consumer) {
+        for (int slot = nextUsedSlot(-1); slot != -1; slot = nextUsedSlot(slot)) {
+            consumer.accept(keyAt(slot), (V) _values[slot]);
+        }
+    }
+
+    public void forEachValue(Consumer<V> consumer) {
+        for (int slot = nextUsedSlot(-1); slot != -1; slot = nextUsedSlot(slot)) {
+            consumer.accept((V) _values[slot]);
+        }
+    }
+
+    @Override
+    protected void clearValue(int slot) {
+        _values[slot] = null;
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        _values[to] = _values[from];
+    }
+
+    @Override
+    protected void clearAllValues() {
+        Arrays.fill(_values, null);
+    }
+
+    @Override
+    protected void rehashValues(int newLength, int[] moves) {
+        Object[] newValues = new Object[newLength];
+        for (int i = 0; i < moves.length; ++i) {
+            if (moves[i] != -1) {
+                newValues[moves[i]] = _values[i];
+            }
+        }
+        _values = newValues;
+    }
+}
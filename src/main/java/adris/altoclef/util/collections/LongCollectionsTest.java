@@ -0,0 +1,210 @@
+package adris.altoclef.util.collections;
+
+import adris.altoclef.util.helpers.HarnessHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fuzzes our primitive long collections against {@link HashMap}/{@link HashSet}, then times them against each other.
+ * <p>
+ * Key pools are picked to hit the awkward cases: the zero key (which lives outside the table), and long probe chains
+ * that wrap around the end of the table, so removing from the middle of one has to shift the rest back.
+ */
+public class LongCollectionsTest {
+
+    private static final HarnessHelper HARNESS = new HarnessHelper("Long collections");
+    private static final int OPERATIONS = 200_000;
+
+    public static void test() {
+        Random random = new Random(42);
+        for (long[] pool : createKeyPools(random)) {
+            fuzzSet(random, pool);
+            fuzzIntMap(random, pool);
+            fuzzObjectMap(random, pool);
+        }
+        HARNESS.passed();
+        benchmark(random);
+    }
+
+    private static List<long[]> createKeyPools(Random random) {
+        List<long[]> pools = new ArrayList<>();
+        // Few keys, lots of repeats, zero included.
+        long[] small = new long[40];
+        for (int i = 0; i < small.length; ++i) {
+            small[i] = i - 20;
+        }
+        pools.add(small);
+        // Everything lands on the last three slots of a 16 or 32 slot table, so chains wrap around to the start.
+        long[] colliding = new long[48];
+        int found = 0;
+        for (long key = 1; found < colliding.length; ++key) {
+            int home = AbstractLongHashTable.mix(key) & 31;
+            if (home >= 29) {
+                colliding[found++] = key;
+            }
+        }
+        colliding[0] = 0;
+        pools.add(colliding);
+        // Spread out, like packed block positions.
+        long[] wide = new long[5000];
+        for (int i = 0; i < wide.length; ++i) {
+            wide[i] = random.nextLong();
+        }
+        wide[0] = 0;
+        pools.add(wide);
+        return pools;
+    }
+
+    private static void fuzzSet(Random random, long[] pool) {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < OPERATIONS; ++i) {
+            long key = pool[random.nextInt(pool.length)];
+            switch (random.nextInt(10)) {
+                case 0, 1, 2, 3 -> HARNESS.check(set.add(key) == expected.add(key), "set add", key);
+                case 4, 5, 6 -> HARNESS.check(set.remove(key) == expected.remove(key), "set remove", key);
+                case 7, 8 -> HARNESS.check(set.contains(key) == expected.contains(key), "set contains", key);
+                default -> {
+                    if (random.nextInt(2000) == 0) {
+                        set.clear();
+                        expected.clear();
+                    }
+                }
+            }
+            HARNESS.check(set.size() == expected.size(), "set size", set.size() + " vs " + expected.size());
+            if (i % 1000 == 0) {
+                Set<Long> actual = new HashSet<>();
+                set.forEach(actual::add);
+                HARNESS.check(actual.equals(expected), "set contents", actual);
+                Set<Long> iterated = new HashSet<>();
+                PrimitiveIterator.OfLong keys = set.keyIterator();
+                while (keys.hasNext()) {
+                    iterated.add(keys.nextLong());
+                }
+                HARNESS.check(iterated.equals(expected), "set iterator", iterated);
+                HARNESS.check(set.toArray().length == expected.size(), "set toArray", set.toArray().length);
+            }
+        }
+    }
+
+    private static void fuzzIntMap(Random random, long[] pool) {
+        Long2IntHashMap map = new Long2IntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; ++i) {
+            long key = pool[random.nextInt(pool.length)];
+            int value = random.nextInt(100);
+            switch (random.nextInt(10)) {
+                case 0, 1, 2 -> {
+                    Integer previous = expected.put(key, value);
+                    HARNESS.check(map.put(key, value, -1) == (previous == null ? -1 : previous), "int map put", key);
+                }
+                case 3 -> HARNESS.check(map.addTo(key, value) == expected.merge(key, value, Integer::sum), "int map addTo", key);
+                case 4, 5, 6 -> HARNESS.check(map.remove(key) == (expected.remove(key) != null), "int map remove", key);
+                case 7, 8 -> {
+                    HARNESS.check(map.get(key, -1) == expected.getOrDefault(key, -1), "int map get", key);
+                    HARNESS.check(map.containsKey(key) == expected.containsKey(key), "int map containsKey", key);
+                }
+                default -> {
+                    if (random.nextInt(2000) == 0) {
+                        map.clear();
+                        expected.clear();
+                    }
+                }
+            }
+            HARNESS.check(map.size() == expected.size(), "int map size", map.size() + " vs " + expected.size());
+            if (i % 1000 == 0) {
+                Map<Long, Integer> actual = new HashMap<>();
+                map.forEach(actual::put);
+                HARNESS.check(actual.equals(expected), "int map contents", actual);
+            }
+        }
+    }
+
+    private static void fuzzObjectMap(Random random, long[] pool) {
+        Long2ObjectHashMap<String> map = new Long2ObjectHashMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; ++i) {
+            long key = pool[random.nextInt(pool.length)];
+            String value = Integer.toString(random.nextInt(100));
+            switch (random.nextInt(10)) {
+                case 0, 1, 2, 3 -> HARNESS.check(eq(map.put(key, value), expected.put(key, value)), "object map put", key);
+                case 4, 5, 6 -> HARNESS.check(eq(map.remove(key), expected.remove(key)), "object map remove", key);
+                case 7, 8 -> HARNESS.check(eq(map.get(key), expected.get(key)), "object map get", key);
+                default -> {
+                    if (random.nextInt(2000) == 0) {
+                        map.clear();
+                        expected.clear();
+                    }
+                }
+            }
+            HARNESS.check(map.size() == expected.size(), "object map size", map.size() + " vs " + expected.size());
+            if (i % 1000 == 0) {
+                Map<Long, String> actual = new HashMap<>();
+                map.forEach(actual::put);
+                HARNESS.check(actual.equals(expected), "object map contents", actual);
+                List<String> values = new ArrayList<>();
+                map.forEachValue(values::add);
+                HARNESS.check(values.size() == expected.size(), "object map values", values.size());
+            }
+        }
+    }
+
+    private static void benchmark(Random random) {
+        final int keyCount = 100_000, rounds = 20;
+        long[] keys = new long[keyCount];
+        for (int i = 0; i < keyCount; ++i) {
+            // Packed block positions around spawn, like the trackers hold.
+            keys[i] = packPos(random.nextInt(512) - 256, random.nextInt(128) - 64, random.nextInt(512) - 256);
+        }
+        double primitiveNanos = HarnessHelper.time(rounds, r -> {
+            long hits = 0;
+            LongHashSet set = new LongHashSet();
+            for (long key : keys) set.add(key);
+            for (long key : keys) if (set.contains(key ^ 1)) hits++;
+            for (long key : keys) set.remove(key);
+            return hits;
+        });
+        double boxedNanos = HarnessHelper.time(rounds, r -> {
+            long hits = 0;
+            HashSet<Long> set = new HashSet<>();
+            for (long key : keys) set.add(key);
+            for (long key : keys) if (set.contains(key ^ 1)) hits++;
+            for (long key : keys) set.remove(key);
+            return hits;
+        });
+        double primitiveMapNanos = HarnessHelper.time(rounds, r -> {
+            long total = 0;
+            Long2IntHashMap map = new Long2IntHashMap();
+            for (long key : keys) map.addTo(key, 1);
+            for (long key : keys) total += map.get(key, 0);
+            for (long key : keys) map.remove(key);
+            return total;
+        });
+        double boxedMapNanos = HarnessHelper.time(rounds, r -> {
+            long total = 0;
+            HashMap<Long, Integer> map = new HashMap<>();
+            for (long key : keys) map.merge(key, 1, Integer::sum);
+            for (long key : keys) total += map.getOrDefault(key, 0);
+            for (long key : keys) map.remove(key);
+            return total;
+        });
+        HARNESS.log("%d keys add/contains/remove, LongHashSet %.2fms vs HashSet<Long> %.2fms", keyCount, primitiveNanos / 1e6, boxedNanos / 1e6);
+        HARNESS.log("%d keys addTo/get/remove, Long2IntHashMap %.2fms vs HashMap<Long, Integer> %.2fms", keyCount, primitiveMapNanos / 1e6, boxedMapNanos / 1e6);
+    }
+
+    // Same packing as BlockPos.asLong, without needing Minecraft on the classpath.
+    private static long packPos(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,55 @@
+package adris.altoclef.util.collections;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A set of primitive longs. Good for packed positions ({@link net.minecraft.util.math.BlockPos#asLong()}) and ids.
+ */
+public class LongHashSet extends AbstractLongHashTable {
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @return true if we didn't have `key` before.
+     */
+    public boolean add(long key) {
+        if (claimSlot(key) >= 0) return false;
+        afterInsert();
+        return true;
+    }
+
+    /**
+     * @return true if we had `key`.
+     */
+    public boolean remove(long key) {
+        int slot = slotOf(key);
+        if (slot < 0) return false;
+        removeSlot(slot);
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return containsKey(key);
+    }
+
+    public void forEach(LongConsumer consumer) {
+        for (int slot = nextUsedSlot(-1); slot != -1; slot = nextUsedSlot(slot)) {
+            consumer.accept(keyAt(slot));
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[_size];
+        int i = 0;
+        for (int slot = nextUsedSlot(-1); slot != -1; slot = nextUsedSlot(slot)) {
+            result[i++] = keyAt(slot);
+        }
+        return result;
+    }
+}
@@ -43,6 +43,15 @@ public class ConfigHelper {
         return new File(fullPath);
     }
 
+    /**
+     * Returns a file inside the altoclef folder, for anything we store that isn't a config.
+     *
+     * @param path The path relative to the altoclef folder.
+     */
+    public static File getDataFile(String path) {
+        return getConfigFile(path);
+    }
+
     /**
      * Reloads all configurations.
      */
@@ -0,0 +1,58 @@
+package adris.altoclef.util.helpers;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * What the main source check harnesses (the `...Test` classes) have in common: failing a check, and timing something.
+ * <p>
+ * Timings are rough numbers only, there's no proper benchmark harness in here. Each one runs once to warm up, then
+ * once more for real.
+ */
+public class HarnessHelper {
+
+    // Whatever gets timed adds its results in here, so the JIT can't throw the work away.
+    private static volatile long _sink;
+
+    private final String _name;
+
+    public HarnessHelper(String name) {
+        _name = name;
+    }
+
+    public void check(boolean condition, String description, Object actual) {
+        if (!condition) {
+            throw new IllegalStateException(_name + " check failed: " + description + " (got " + actual + ")");
+        }
+    }
+
+    public void passed() {
+        System.out.println(_name + ": all checks passed.");
+    }
+
+    public void passed(String details) {
+        System.out.println(_name + ": all checks passed (" + details + ").");
+    }
+
+    public void log(String format, Object... args) {
+        System.out.println(_name + ": " + String.format(format, args));
+    }
+
+    /**
+     * Runs `run` for `runs` indices to warm up, then again timed.
+     *
+     * @return How long one run took on average, in nanoseconds.
+     */
+    public static double time(int runs, IntToLongFunction run) {
+        long sink = 0;
+        for (int i = 0; i < runs; ++i) {
+            sink += run.applyAsLong(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; ++i) {
+            sink += run.applyAsLong(i);
+        }
+        double nanos = (double) (System.nanoTime() - start) / runs;
+        _sink += sink;
+        return nanos;
+    }
+}
@@ -21,44 +21,122 @@ public class ProjectileHelper {
         return !entity.hasNoGravity();
     }
 
-    // If we shoot on a 2d plane, what is the 2d point on that trajectory closest to our player pos?
-    private static Vec3d getClosestPointOnFlatLine(double shootX, double shootZ, double velX, double velZ, double playerX, double playerZ) {
+    // If we shoot on a 2d plane, how far (squared) does that trajectory pass from our player pos?
+    // Pathing calls this per node, so no vectors.
+    public static double getFlatDistanceSqr(double shootX, double shootZ, double velX, double velZ, double playerX, double playerZ) {
         double deltaX = playerX - shootX,
                 deltaZ = playerZ - shootZ;
         // Did da math I am smurt boi who knows basic calculus
         double t = ((velX * deltaX) + (velZ * deltaZ)) / (velX * velX + velZ * velZ);
 
-        double hitX = shootX + velX * t,
-                hitZ = shootZ + velZ * t;
-
-        return new Vec3d(hitX, 0, hitZ);
+        double offX = shootX + velX * t - playerX,
+                offZ = shootZ + velZ * t - playerZ;
+        return offX * offX + offZ * offZ;
     }
 
-    public static double getFlatDistanceSqr(double shootX, double shootZ, double velX, double velZ, double playerX, double playerZ) {
-        return getClosestPointOnFlatLine(shootX, shootZ, velX, velZ, playerX, playerZ).squaredDistanceTo(playerX, 0, playerZ);
+    /**
+     * Calculates where an arrow will be when it's closest to us, which is where it'd hit us if it hits.
+     * Exact for the motion we model: constant velocity plus gravity (no drag).
+     */
+    public static Vec3d calculateArrowClosestApproach(Vec3d shootOrigin, Vec3d shootVelocity, double yGravity, Vec3d playerOrigin) {
+        double t = getClosestApproachTime(
+                shootOrigin.x - playerOrigin.x, shootOrigin.y - playerOrigin.y, shootOrigin.z - playerOrigin.z,
+                shootVelocity.x, shootVelocity.y, shootVelocity.z, yGravity, new double[3]);
+        return getPositionAt(shootOrigin, shootVelocity, yGravity, t);
     }
 
-    private static double getArrowHitHeight(double gravity, double horizontalVel, double verticalVel, double initialHeight, double distanceTraveled) {
-        double time = distanceTraveled / horizontalVel;
-        return initialHeight - (verticalVel * time) - 0.5 * (gravity * time * time);
+    public static Vec3d getPositionAt(Vec3d shootOrigin, Vec3d shootVelocity, double yGravity, double time) {
+        return new Vec3d(
+                shootOrigin.x + shootVelocity.x * time,
+                shootOrigin.y + shootVelocity.y * time - 0.5 * yGravity * time * time,
+                shootOrigin.z + shootVelocity.z * time
+        );
     }
 
     /**
-     * Calculates where we think an arrow will "hit" us, or at least where it will be at its closest.
-     * Does so by figuring out the closest X-Z coordinate of the arrow's trajectory and then using the height
-     * of the arrow when it reaches that point as the result's Y value.
+     * When (in ticks from now, never negative) a projectile is closest to a point.
+     * <p>
+     * The squared distance is a quartic in time, so it's smallest either right now or where its derivative,
+     * a cubic, is zero. We find every real root of that cubic and keep whichever time is closest.
+     *
+     * @param rx,ry,rz Projectile position minus the point
+     * @param roots    Scratch space, at least 3 long
      */
-    public static Vec3d calculateArrowClosestApproach(Vec3d shootOrigin, Vec3d shootVelocity, double yGravity, Vec3d playerOrigin) {
-        Vec3d flatEncounter = getClosestPointOnFlatLine(shootOrigin.x, shootOrigin.z, shootVelocity.x, shootVelocity.z, playerOrigin.x, playerOrigin.z);
-        double encounterDistanceTraveled = (flatEncounter.subtract(shootOrigin.x, flatEncounter.y, shootOrigin.z)).length();
-
-        double horizontalVel = Math.sqrt(shootVelocity.x * shootVelocity.x + shootVelocity.z * shootVelocity.z);
-        double verticalVel = shootVelocity.y;
-        double initialHeight = shootOrigin.y;
+    public static double getClosestApproachTime(double rx, double ry, double rz, double vx, double vy, double vz, double gravity, double[] roots) {
+        if (gravity == 0) {
+            // Straight line, closest point is a projection.
+            double speedSq = vx * vx + vy * vy + vz * vz;
+            if (speedSq == 0) return 0;
+            return Math.max(0, -(rx * vx + ry * vy + rz * vz) / speedSq);
+        }
+        // d/dt of half the squared distance: a t^3 + b t^2 + c t + d
+        double a = 0.5 * gravity * gravity;
+        double b = -1.5 * gravity * vy;
+        double c = vx * vx + vy * vy + vz * vz - gravity * ry;
+        double d = rx * vx + ry * vy + rz * vz;
+        int rootCount = solveCubic(a, b, c, d, roots);
+
+        double bestTime = 0;
+        double bestSq = getDistanceSqAt(rx, ry, rz, vx, vy, vz, gravity, 0);
+        for (int i = 0; i < rootCount; ++i) {
+            double t = roots[i];
+            if (t <= 0) continue;
+            double sq = getDistanceSqAt(rx, ry, rz, vx, vy, vz, gravity, t);
+            if (sq < bestSq) {
+                bestSq = sq;
+                bestTime = t;
+            }
+        }
+        return bestTime;
+    }
 
-        double hitHeight = getArrowHitHeight(yGravity, horizontalVel, verticalVel, initialHeight, encounterDistanceTraveled);
+    public static double getDistanceSqAt(double rx, double ry, double rz, double vx, double vy, double vz, double gravity, double time) {
+        double dx = rx + vx * time,
+                dy = ry + vy * time - 0.5 * gravity * time * time,
+                dz = rz + vz * time;
+        return dx * dx + dy * dy + dz * dz;
+    }
 
-        return new Vec3d(flatEncounter.x, hitHeight, flatEncounter.z);
+    // Real roots of a t^3 + b t^2 + c t + d (a != 0), written to `roots`. Returns how many there are.
+    private static int solveCubic(double a, double b, double c, double d, double[] roots) {
+        double B = b / a, C = c / a, D = d / a;
+        // Substitute t = x - B/3 to get x^3 + p x + q
+        double shift = B / 3.0;
+        double p = C - B * shift;
+        double q = (2.0 * B * B * B) / 27.0 - (B * C) / 3.0 + D;
+        double halfQ = q / 2.0, thirdP = p / 3.0;
+        double discriminant = halfQ * halfQ + thirdP * thirdP * thirdP;
+
+        int count;
+        if (discriminant > 0) {
+            // One real root
+            double sqrt = Math.sqrt(discriminant);
+            roots[0] = Math.cbrt(-halfQ + sqrt) + Math.cbrt(-halfQ - sqrt);
+            count = 1;
+        } else if (p == 0) {
+            // Triple root
+            roots[0] = 0;
+            count = 1;
+        } else {
+            // Three real roots (some may repeat), trigonometric form
+            double radius = 2.0 * Math.sqrt(-thirdP);
+            double cos = Math.max(-1, Math.min(1, (3.0 * q) / (p * radius)));
+            double angle = Math.acos(cos) / 3.0;
+            for (int k = 0; k < 3; ++k) {
+                roots[k] = radius * Math.cos(angle - (2.0 * Math.PI * k) / 3.0);
+            }
+            count = 3;
+        }
+        for (int i = 0; i < count; ++i) {
+            double t = roots[i] - shift;
+            // One Newton step cleans up what the closed forms lose to rounding.
+            double slope = (3 * a * t + 2 * b) * t + c;
+            if (slope != 0) {
+                t -= (((a * t + b) * t + c) * t + d) / slope;
+            }
+            roots[i] = t;
+        }
+        return count;
     }
 
     public static Vec3d calculateArrowClosestApproach(CachedProjectile projectile, Vec3d pos) {
@@ -94,45 +172,4 @@ public class ProjectileHelper {
         // Minecraft Magic Number
         return entity.getPos().subtract(0, 0.1, 0);
     }
-
-    // Unable to figure out how to extract multiple roots, this is too complicated for engineering major like me.
-    @SuppressWarnings("UnnecessaryLocalVariable")
-    @Deprecated
-    private static double getNearestTimeOfShotProjectile(Vec3d shootOrigin, Vec3d shootVelocity, double yGravity, Vec3d playerOrigin) {
-        // Formatted for equations and ease of writing. This is why I'm not minoring in math.
-        Vec3d D = playerOrigin.subtract(shootOrigin);
-        Vec3d V = shootVelocity;
-        double g = yGravity;
-
-        // Cubic terms
-        double a = (g * g) / 2.0;
-        double b = -(3.0 * g * V.y) / 2.0;
-        double c = V.lengthSquared() + (g * V.y);
-        double d = -1 * V.dotProduct(D);
-
-
-        // Now that we have our cubic equation for SQUARED distance, find the "zero" points.
-        // This will only happen when we reach either a local minimum or a local maximum.
-
-        // Solution stuff, thanks https://math.vanderbilt.edu/schectex/courses/cubic/
-        double p = -b / (3.0 * a);
-        double q = (p * p * p) + (((b * c) - (3.0 * a * d)) / (6.0 * a * a));
-        double r = c / (3.0 * a);
-
-        double rootInner = (q * q) + Math.pow(r - p * p, 3);
-
-        // Theoretically there could exist imaginary roots that will cancel themselves out, but that ought to be rare.
-        // We will get an imaginary root somewhere so ignore it.
-        if (rootInner < 0) return -1;
-
-        rootInner = Math.sqrt(rootInner);
-
-
-        double outerPreCubeLeft = q + rootInner;
-        double outerPreCubeRight = q - rootInner;
-
-        // THERE SHOULD BE UP TO 3!!! This will only find one and that can be completely wrong.
-        return Math.pow(outerPreCubeLeft, 1.0 / 3.0) + Math.pow(outerPreCubeRight, 1.0 / 3.0) + p;
-    }
-
 }
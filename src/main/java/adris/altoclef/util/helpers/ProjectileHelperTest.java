@@ -0,0 +1,112 @@
+package adris.altoclef.util.helpers;
+
+import java.util.Random;
+
+/**
+ * Checks {@link ProjectileHelper#getClosestApproachTime} against stepping along the trajectory in small time steps,
+ * from random origins and velocities, then times the two.
+ * <p>
+ * The solver has to come out at least as close as anything the scan finds (it's exact, the scan isn't), and the
+ * scan has to find about as close a point wherever the solver says it is.
+ */
+public class ProjectileHelperTest {
+
+    private static final HarnessHelper HARNESS = new HarnessHelper("ProjectileHelper");
+    private static final int CASES = 5000;
+    // How far along the trajectory the scan looks, in ticks. Cases where the solver says later are only checked one way.
+    private static final double HORIZON = 600;
+    private static final double STEP = 0.05;
+    private static final double[] GRAVITIES = {0, ProjectileHelper.ARROW_GRAVITY_ACCEL, ProjectileHelper.THROWN_ENTITY_GRAVITY_ACCEL};
+
+    public static void test() {
+        Random random = new Random(15);
+        double[] roots = new double[3];
+        double worst = 0;
+        int compared = 0;
+        for (int i = 0; i < CASES; ++i) {
+            double[] c = randomCase(random);
+            double t = ProjectileHelper.getClosestApproachTime(c[0], c[1], c[2], c[3], c[4], c[5], c[6], roots);
+            HARNESS.check(t >= 0 && Double.isFinite(t), "closest approach is now or later", t);
+            double solvedSq = ProjectileHelper.getDistanceSqAt(c[0], c[1], c[2], c[3], c[4], c[5], c[6], t);
+            double scannedSq = scan(c);
+            // Nothing the scan finds can be closer than the exact answer, give or take rounding.
+            HARNESS.check(solvedSq <= scannedSq + 1e-7 * (1 + scannedSq), "solver is at least as close as the scan, case " + i + " " + describe(c), Math.sqrt(solvedSq) + " vs " + Math.sqrt(scannedSq));
+            if (t <= HORIZON) {
+                double difference = Math.sqrt(scannedSq) - Math.sqrt(solvedSq);
+                HARNESS.check(difference < 1e-4, "scan gets as close as the solver, case " + i + " " + describe(c), difference);
+                worst = Math.max(worst, difference);
+                compared++;
+            }
+        }
+        HARNESS.passed(String.format("%d cases, %d compared both ways, worst scan gap %.2e blocks", CASES, compared, worst));
+
+        benchmark(random);
+    }
+
+    // {rx, ry, rz, vx, vy, vz, gravity}: within 40 blocks, moving at 0.2 to 3 blocks a tick.
+    private static double[] randomCase(Random random) {
+        double[] c = new double[7];
+        for (int k = 0; k < 3; ++k) {
+            c[k] = (random.nextDouble() * 2 - 1) * 40;
+        }
+        double speed = 0.2 + random.nextDouble() * 2.8;
+        double vx = random.nextGaussian(), vy = random.nextGaussian(), vz = random.nextGaussian();
+        double length = Math.sqrt(vx * vx + vy * vy + vz * vz);
+        c[3] = vx / length * speed;
+        c[4] = vy / length * speed;
+        c[5] = vz / length * speed;
+        c[6] = GRAVITIES[random.nextInt(GRAVITIES.length)];
+        // Sometimes aim right at the point, so hits (and near misses) get checked too.
+        if (random.nextInt(4) == 0) {
+            double distance = Math.sqrt(c[0] * c[0] + c[1] * c[1] + c[2] * c[2]);
+            c[3] = -c[0] / distance * speed;
+            c[4] = -c[1] / distance * speed;
+            c[5] = -c[2] / distance * speed;
+        }
+        return c;
+    }
+
+    /**
+     * Closest squared distance found by stepping through time, then narrowing in around the best step.
+     */
+    private static double scan(double[] c) {
+        double bestTime = 0;
+        double bestSq = Double.POSITIVE_INFINITY;
+        for (double t = 0; t <= HORIZON; t += STEP) {
+            double sq = ProjectileHelper.getDistanceSqAt(c[0], c[1], c[2], c[3], c[4], c[5], c[6], t);
+            if (sq < bestSq) {
+                bestSq = sq;
+                bestTime = t;
+            }
+        }
+        // Ternary search the step either side of it.
+        double low = Math.max(0, bestTime - STEP), high = bestTime + STEP;
+        for (int i = 0; i < 100; ++i) {
+            double a = low + (high - low) / 3, b = high - (high - low) / 3;
+            if (ProjectileHelper.getDistanceSqAt(c[0], c[1], c[2], c[3], c[4], c[5], c[6], a) < ProjectileHelper.getDistanceSqAt(c[0], c[1], c[2], c[3], c[4], c[5], c[6], b)) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        return Math.min(bestSq, ProjectileHelper.getDistanceSqAt(c[0], c[1], c[2], c[3], c[4], c[5], c[6], (low + high) / 2));
+    }
+
+    private static String describe(double[] c) {
+        return String.format("(r %.3f %.3f %.3f, v %.3f %.3f %.3f, g %.3f)", c[0], c[1], c[2], c[3], c[4], c[5], c[6]);
+    }
+
+    private static void benchmark(Random random) {
+        double[][] cases = new double[1024][];
+        for (int i = 0; i < cases.length; ++i) {
+            cases[i] = randomCase(random);
+        }
+        double[] roots = new double[3];
+        double solveNanos = HarnessHelper.time(1_000_000, i -> {
+            double[] c = cases[i & (cases.length - 1)];
+            return Double.doubleToRawLongBits(ProjectileHelper.getClosestApproachTime(c[0], c[1], c[2], c[3], c[4], c[5], c[6], roots));
+        });
+        double scanNanos = HarnessHelper.time(2000, i -> Double.doubleToRawLongBits(scan(cases[i & (cases.length - 1)])));
+        HARNESS.log("solver %.1fns per projectile, %.0f tick scan at %.2f steps %.1fus", solveNanos, HORIZON, STEP, scanNanos / 1000);
+    }
+}
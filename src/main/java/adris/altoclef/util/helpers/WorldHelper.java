@@ -2,6 +2,7 @@ package adris.altoclef.util.helpers;
 
 import adris.altoclef.AltoClef;
 import adris.altoclef.mixins.ClientConnectionAccessor;
+import adris.altoclef.trackers.spatial.ChunkSectionScanner;
 import adris.altoclef.util.Dimension;
 import baritone.api.BaritoneAPI;
 import baritone.pathing.movement.CalculationContext;
@@ -25,6 +26,7 @@ import net.minecraft.world.biome.BiomeKeys;
 import net.minecraft.world.dimension.PortalManager;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Super useful helper functions for getting information about the world.
@@ -346,6 +348,23 @@ public interface WorldHelper {
         };
     }
 
+    /**
+     * Visits every block between `start` and `end` (inclusive) whose state passes `target`, section by section.
+     * Much cheaper than {@link #scanRegion(AltoClef, BlockPos, BlockPos)} when you only care about a few block types.
+     *
+     * @return whether `onBlock` returned true (stop) at any point.
+     */
+    static boolean scanRegion(AltoClef mod, BlockPos start, BlockPos end, Predicate<BlockState> target, ChunkSectionScanner.Visitor onBlock) {
+        return ChunkSectionScanner.scanRegion(mod.getWorld(), start, end, target, onBlock);
+    }
+
+    /**
+     * @return whether any of `blocks` are between `start` and `end` (inclusive)
+     */
+    static boolean regionContains(AltoClef mod, BlockPos start, BlockPos end, Block... blocks) {
+        return scanRegion(mod, start, end, state -> Arrays.asList(blocks).contains(state.getBlock()), (pos, state) -> true);
+    }
+
     static boolean fallingBlockSafeToBreak(BlockPos pos) {
         BlockStateInterface bsi = new BlockStateInterface(BaritoneAPI.getProvider().getPrimaryBaritone().getPlayerContext());
         World w = MinecraftClient.getInstance().world;